@@ -3,7 +3,6 @@ package org.example;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.sql.*;
 import java.time.LocalDate;
 
 /** Dialog to add a new Animal (Tier). Capacity of the selected "Inclosure" is checked before closing OK. */
@@ -11,6 +10,8 @@ public class AddAnimalDialog extends JDialog {
 
     private boolean ok = false;
 
+    private final org.example.TierheimService service = new org.example.TierheimService();
+
     // ---- Fields (as in your screenshots) ----
     private final JTextField txtName        = new JTextField(16);
     private final JTextField txtSpecies     = new JTextField(16);
@@ -55,15 +56,8 @@ public class AddAnimalDialog extends JDialog {
                 // 1) Validate simple inputs
                 if (!validateInputs()) return;
 
-                // 2) Capacity check (DB)
-                if (!checkEnclosureHasSpace()) {
-                    // message shown inside; do not close dialog
-                    return;
-                }
-
-                // 3) All good → caller will read values and do the insert
-                ok = true;
-                dispose();
+                // 2) Capacity check (DB, off the EDT); closes the dialog if there is space
+                checkEnclosureHasSpace(this);
             }
         });
 
@@ -93,73 +87,61 @@ public class AddAnimalDialog extends JDialog {
 
     // ---------------- Validation ----------------
     private boolean validateInputs() {
-        if (getNameText().isEmpty()) {
-            JOptionPane.showMessageDialog(this, "Name is required."); return false;
-        }
-        if (getSpeciesText().isEmpty()) {
-            JOptionPane.showMessageDialog(this, "Species is required."); return false;
-        }
-        if (getInclosureId() == null) {
-            JOptionPane.showMessageDialog(this, "Please enter a valid Inclosure ID (number)."); return false;
-        }
-        // dates optional but if filled then must parse
-        String arr = txtArrivalDate.getText().trim();
-        if (!arr.isEmpty() && getArrivalDate() == null) {
-            JOptionPane.showMessageDialog(this, "Arrival Date must be YYYY-MM-DD or empty."); return false;
-        }
-        String birth = txtBirthDate.getText().trim();
-        if (!birth.isEmpty() && getBirthDate() == null) {
-            JOptionPane.showMessageDialog(this, "Birth Date must be YYYY-MM-DD or empty."); return false;
+        // same rules as the CSV import
+        String error = org.example.AnimalValidation.validate(txtName.getText(), txtSpecies.getText(),
+                txtInclosureId.getText(), txtAge.getText(), getSex(),
+                txtArrivalDate.getText(), txtBirthDate.getText());
+        if (error != null) {
+            JOptionPane.showMessageDialog(this, error); return false;
         }
         return true;
     }
 
     // ---------------- Capacity check ----------------
-    /** Returns false if the enclosure is full (or invalid/not found). */
-    private boolean checkEnclosureHasSpace() {
+    /**
+     * Answers from OccupancyCache when the enclosure is cached, else looks it up in the background
+     * (one query). If it has space the dialog closes with OK (caller will read values and do the insert);
+     * otherwise a message is shown and it stays open.
+     * This is only early feedback - the insert itself re-checks capacity atomically.
+     */
+    private void checkEnclosureHasSpace(Action okAction) {
         Integer enclosureId = getInclosureId();
-        if (enclosureId == null) return false;
-
-        try (Connection conn = org.example.Database.getConnection()) {
-            // 1) get capacity
-            int capacity;
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "SELECT capacity FROM enclosures WHERE id = ?")) {
-                ps.setInt(1, enclosureId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (!rs.next()) {
-                        JOptionPane.showMessageDialog(this, "Enclosure " + enclosureId + " not found.");
-                        return false;
-                    }
-                    capacity = rs.getInt("capacity");
-                }
-            }
+        if (enclosureId == null) return;
 
-            // 2) count current animals in this enclosure
-            int current;
-            try (PreparedStatement ps2 = conn.prepareStatement(
-                    "SELECT COUNT(*) AS cnt FROM animals WHERE inclosure_id = ?")) {
-                ps2.setInt(1, enclosureId);
-                try (ResultSet rs2 = ps2.executeQuery()) {
-                    rs2.next();
-                    current = rs2.getInt("cnt");
-                }
-            }
+        org.example.Gehege cached = org.example.OccupancyCache.get().find(enclosureId);
+        if (cached != null) {
+            acceptIfSpace(cached);
+            return;
+        }
 
-            // 3) compare and report
-            if (current >= capacity) {
-                JOptionPane.showMessageDialog(this,
-                        "Enclosure " + enclosureId + " is FULL!\n" +
-                                "Capacity: " + capacity + " | Current: " + current);
-                return false;
+        okAction.setEnabled(false);   // no double submit while the check runs
+        org.example.DbExecutor.run(getRootPane(), "capacity", () -> service.findEnclosure(enclosureId), g -> {
+            okAction.setEnabled(true);
+            if (g == null) {
+                JOptionPane.showMessageDialog(this, "Enclosure " + enclosureId + " not found.");
+                return;
             }
-            return true;
-
-        } catch (Exception ex) {
+            org.example.OccupancyCache.get().put(g);
+            acceptIfSpace(g);
+        }, ex -> {
+            okAction.setEnabled(true);
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Capacity check error: " + ex.getMessage());
-            return false;
+        });
+    }
+
+    private void acceptIfSpace(org.example.Gehege g) {
+        int capacity = g.getCapacity();
+        int current = g.getOccupancy();
+        // compare and report
+        if (current >= capacity) {
+            JOptionPane.showMessageDialog(this,
+                    "Enclosure " + g.getId() + " is FULL!\n" +
+                            "Capacity: " + capacity + " | Current: " + current);
+            return;
         }
+        ok = true;
+        dispose();
     }
 
     // ---------------- Getters (as in your class) ----------------
@@ -167,36 +149,29 @@ public class AddAnimalDialog extends JDialog {
     public String getSpeciesText() { return txtSpecies.getText().trim(); }
 
     public Integer getAgeValue() {
-        try { return Integer.parseInt(txtAge.getText().trim()); }
-        catch (Exception e) { return null; }
+        return org.example.AnimalValidation.parseInt(txtAge.getText());
     }
 
     /** Spelling kept to match your existing caller code. */
     public Integer getInclosureId() {
-        try { return Integer.parseInt(txtInclosureId.getText().trim()); }
-        catch (Exception e) { return null; }
+        return org.example.AnimalValidation.parseInt(txtInclosureId.getText());
     }
 
     public String getSex()   { return (String) cboSex.getSelectedItem(); }
     public String getColor() { return txtColor.getText().trim(); }
 
     public LocalDate getArrivalDate() {
-        try { return LocalDate.parse(txtArrivalDate.getText().trim()); }
-        catch (Exception e) { return null; }
+        return org.example.AnimalValidation.parseDate(txtArrivalDate.getText());
     }
 
     public String getHealthNote() { return txtHealthNote.getText().trim(); }
 
     public LocalDate getBirthDate() {
-        try { return LocalDate.parse(txtBirthDate.getText().trim()); }
-        catch (Exception e) { return null; }
+        return org.example.AnimalValidation.parseDate(txtBirthDate.getText());
     }
 
     /** If birth date is empty, derive from age (today - age). */
     public LocalDate getBirthDateResolved() {
-        LocalDate b = getBirthDate();
-        if (b != null) return b;
-        Integer age = getAgeValue();
-        return (age == null) ? null : LocalDate.now().minusYears(age);
+        return org.example.AnimalValidation.resolveBirthDate(getBirthDate(), getAgeValue());
     }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package org.example;
+
+/** One row of the animal_changes log (see TierheimService / ChangeFeed). */
+public class AnimalChange {
+
+    public static final char INSERT = 'I';
+    public static final char UPDATE = 'U';
+    public static final char DELETE = 'D';
+
+    private final long seq;
+    private final int animalId;
+    private final char op;
+    private final boolean own;      // written by this app instance
+
+    public AnimalChange(long seq, int animalId, char op, boolean own) {
+        this.seq = seq;
+        this.animalId = animalId;
+        this.op = op;
+        this.own = own;
+    }
+
+    public long getSeq() { return seq; }
+    public int getAnimalId() { return animalId; }
+    public char getOp() { return op; }
+    public boolean isOwn() { return own; }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %c animal %d%s", seq, op, animalId, own ? " (own)" : "");
+    }
+}
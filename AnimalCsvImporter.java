@@ -0,0 +1,349 @@
+package org.example;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Streaming CSV import of animals.
+ * - The file is read record by record in chunks of CHUNK rows, never loaded fully.
+ * - Each chunk is parsed and validated in parallel (same rules as AddAnimalDialog).
+ * - Capacity is checked against a snapshot of OccupancyCache taken at the start.
+ * - Valid rows of a chunk go to TierheimService.insertAll (one transaction per chunk).
+ * - After each committed chunk the last (physical) line number is saved next to the file,
+ *   so a cancelled or failed import can be resumed from there.
+ *
+ * Expected header (any order, case-insensitive; name, species, inclosure_id required):
+ * name,species,age,inclosure_id,sex,color,arrival_date,health_note,birth_date
+ * Separator is ',' or ';' (as Excel writes it with German settings), taken from the header.
+ * Fields may be quoted ("..." with "" for a quote); a quoted field may span lines (RFC 4180).
+ */
+public class AnimalCsvImporter {
+
+    private static final int CHUNK = 500;
+    private static final int MAX_ERRORS = 10_000;
+    private static final String[] REQUIRED = {"name", "species", "inclosure_id"};
+
+    /** Called from the import thread after each chunk. */
+    public interface Progress {
+        void update(long line, long bytesRead, long totalBytes, int inserted, int failed);
+    }
+
+    public static final class RowError {
+        private final long line;
+        private final String message;
+
+        RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() { return line; }
+        public String getMessage() { return message; }
+    }
+
+    public static final class Result {
+        private int inserted;
+        private int failed;
+        private boolean cancelled;
+        private long lastLine;
+        private final List<RowError> errors = new ArrayList<>();
+
+        public int getInserted() { return inserted; }
+        public int getFailed() { return failed; }
+        public boolean isCancelled() { return cancelled; }
+        /** Last line that was committed (resume point). */
+        public long getLastLine() { return lastLine; }
+        /** First MAX_ERRORS row errors. */
+        public List<RowError> getErrors() { return errors; }
+
+        private void error(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_ERRORS) errors.add(new RowError(line, message));
+        }
+    }
+
+    private final org.example.TierheimService service;
+    private volatile boolean cancelled;
+
+    public AnimalCsvImporter(org.example.TierheimService service) {
+        this.service = service;
+    }
+
+    /** Stops after the chunk in progress (already committed chunks stay). */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /* ---------- resume ---------- */
+
+    public static Path progressFile(Path csv) {
+        return csv.resolveSibling(csv.getFileName() + ".import-progress");
+    }
+
+    /** Last committed line of an earlier, unfinished import of this file (0 = none). */
+    public static long savedProgress(Path csv) {
+        try {
+            return Long.parseLong(Files.readString(progressFile(csv)).trim());
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /* ---------- import ---------- */
+
+    /** Runs the import on the calling thread. Lines up to skipLines (header = line 1) are skipped. */
+    public Result run(Path csv, long skipLines, Progress progress) throws IOException, SQLException {
+        Result result = new Result();
+        long totalBytes = Files.size(csv);
+
+        org.example.OccupancyCache occupancy = org.example.OccupancyCache.get();
+        occupancy.refresh();
+        Map<Integer, Integer> freeSlots = new HashMap<>();   // capacity snapshot, filled on first use
+
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(csv));
+             RecordReader reader = new RecordReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+
+            String header = reader.next();
+            if (header == null) throw new IOException("The file is empty.");
+            if (header.startsWith("\uFEFF")) header = header.substring(1);   // BOM from Excel
+            char sep = (header.indexOf(';') >= 0 && header.indexOf(',') < 0) ? ';' : ',';
+            Map<String, Integer> columns = readHeader(header, sep);
+
+            result.lastLine = Math.max(1, skipLines);
+            List<String> lines = new ArrayList<>(CHUNK);
+            List<Long> lineNos = new ArrayList<>(CHUNK);
+            String line;
+            boolean eof = false;
+            while (!eof && !cancelled) {
+                lines.clear();
+                lineNos.clear();
+                while (lines.size() < CHUNK) {
+                    long first = reader.line + 1;           // rows are reported by their first line
+                    line = reader.next();
+                    if (line == null) { eof = true; break; }
+                    // saved progress always ends on a record, so a record is skipped as a whole
+                    if (reader.line <= skipLines || line.isBlank()) continue;
+                    lines.add(line);
+                    lineNos.add(first);
+                }
+                if (!lines.isEmpty()) {
+                    importChunk(lines, lineNos, sep, columns, freeSlots, occupancy, result);
+                }
+                long lineNo = reader.line;
+                result.lastLine = lineNo;
+                saveProgress(csv, lineNo);
+                if (progress != null) {
+                    progress.update(lineNo, in.count, totalBytes, result.inserted, result.failed);
+                }
+            }
+        }
+
+        result.cancelled = cancelled;
+        if (!cancelled) Files.deleteIfExists(progressFile(csv));
+        return result;
+    }
+
+    private void importChunk(List<String> lines, List<Long> lineNos, char sep, Map<String, Integer> columns,
+                             Map<Integer, Integer> freeSlots, org.example.OccupancyCache occupancy,
+                             Result result) throws SQLException {
+        // parse + validate in parallel, results stay in file order
+        List<Parsed> parsed = IntStream.range(0, lines.size()).parallel()
+                .mapToObj(i -> parse(lines.get(i), sep, columns))
+                .toList();
+
+        List<org.example.Tier> batch = new ArrayList<>();
+        List<Long> batchLines = new ArrayList<>();
+        for (int i = 0; i < parsed.size(); i++) {
+            Parsed p = parsed.get(i);
+            long line = lineNos.get(i);
+            if (p.error != null) {
+                result.error(line, p.error);
+                continue;
+            }
+            int enc = p.tier.getInclosureId();
+            Integer free = freeSlots.computeIfAbsent(enc, id -> {
+                org.example.Gehege g = occupancy.find(id);
+                return (g == null) ? null : g.getCapacity() - g.getOccupancy();
+            });
+            if (free == null) {
+                result.error(line, "Enclosure " + enc + " not found.");
+                continue;
+            }
+            if (free <= 0) {
+                result.error(line, "Enclosure " + enc + " is full.");
+                continue;
+            }
+            freeSlots.put(enc, free - 1);
+            batch.add(p.tier);
+            batchLines.add(line);
+        }
+        if (batch.isEmpty()) return;
+
+        org.example.BatchInsertResult r = service.insertAll(batch);
+        for (Map.Entry<Integer, String> f : r.getFailures().entrySet()) {
+            result.error(batchLines.get(f.getKey()), f.getValue());
+            // not inserted (duplicate, or full under the lock): its slot is free again
+            freeSlots.merge(batch.get(f.getKey()).getInclosureId(), 1, Integer::sum);
+        }
+        result.inserted += r.getInsertedCount();
+    }
+
+    /* ---------- parsing ---------- */
+
+    private static final class Parsed {
+        final org.example.Tier tier;
+        final String error;
+
+        Parsed(org.example.Tier tier, String error) {
+            this.tier = tier;
+            this.error = error;
+        }
+    }
+
+    private static Map<String, Integer> readHeader(String header, char sep) throws IOException {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header, sep);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : REQUIRED) {
+            if (!columns.containsKey(required)) throw new IOException("Missing column: " + required);
+        }
+        return columns;
+    }
+
+    private static Parsed parse(String line, char sep, Map<String, Integer> columns) {
+        List<String> f = splitCsv(line, sep);
+        String name = field(f, columns, "name");
+        String species = field(f, columns, "species");
+        String inclosureId = field(f, columns, "inclosure_id");
+        String ageText = field(f, columns, "age");
+        String sexText = field(f, columns, "sex");
+        String arrival = field(f, columns, "arrival_date");
+        String birth = field(f, columns, "birth_date");
+
+        String error = org.example.AnimalValidation.validate(name, species, inclosureId, ageText, sexText,
+                arrival, birth);
+        if (error != null) return new Parsed(null, error);
+
+        Integer age = org.example.AnimalValidation.parseInt(ageText);
+        String sex = org.example.AnimalValidation.normalizeSex(sexText);
+        LocalDate birthDate = org.example.AnimalValidation.parseDate(birth);
+        org.example.Tier t = new org.example.Tier(
+                0,
+                name.trim(),
+                species.trim(),
+                age,
+                false,
+                org.example.AnimalValidation.parseInt(inclosureId),
+                sex,
+                field(f, columns, "color"),
+                org.example.AnimalValidation.parseDate(arrival),
+                field(f, columns, "health_note"),
+                org.example.AnimalValidation.resolveBirthDate(birthDate, age)
+        );
+        return new Parsed(t, null);
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer i = columns.get(column);
+        return (i == null || i >= fields.size()) ? "" : fields.get(i).trim();
+    }
+
+    /** Splits one CSV record; supports "quoted, fields", "" inside quotes and line breaks inside quotes. */
+    static List<String> splitCsv(String line, char sep) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') { cur.append('"'); i++; }
+                    else quoted = false;
+                } else {
+                    cur.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == sep) {
+                out.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(ch);
+            }
+        }
+        out.add(cur.toString());
+        return out;
+    }
+
+    private static void saveProgress(Path csv, long line) {
+        try {
+            Files.writeString(progressFile(csv), Long.toString(line));
+        } catch (IOException e) {
+            // resume is a convenience; the import itself continues
+            System.err.println("Could not save import progress: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads one CSV record at a time: physical lines are joined with '\n' while a quoted field is
+     * open (odd number of quotes so far; "" counts twice and keeps the parity).
+     */
+    private static final class RecordReader extends BufferedReader {
+        /** Physical lines read so far (header = line 1). */
+        long line;
+
+        RecordReader(Reader in) { super(in); }
+
+        /** The next record without its final line break, or null at the end of the file. */
+        String next() throws IOException {
+            String first = readLine();
+            if (first == null) return null;
+            line++;
+            int open = quotes(first);
+            if (open % 2 == 0) return first;
+            StringBuilder record = new StringBuilder(first);
+            String more;
+            while (open % 2 != 0 && (more = readLine()) != null) {
+                line++;
+                record.append('\n').append(more);
+                open += quotes(more);
+            }
+            return record.toString();   // an unclosed quote at the end of the file ends the record
+        }
+
+        private static int quotes(String s) {
+            int n = 0;
+            for (int i = 0; i < s.length(); i++) {
+                if (s.charAt(i) == '"') n++;
+            }
+            return n;
+        }
+    }
+
+    /** Counts bytes read, for the progress bar. */
+    private static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) { super(in); }
+
+        @Override public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
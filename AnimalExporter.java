@@ -0,0 +1,189 @@
+package org.example;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports all animals to CSV or JSON Lines, optionally gzip-compressed.
+ * - Rows come from TierheimService.streamAll and are written as they arrive,
+ *   so heap use stays flat however large the table is.
+ * - Written to "<file>.part" first and moved into place when complete,
+ *   so a cancelled or failed export never leaves a half file under the real name.
+ * The CSV header uses the same column names as AnimalCsvImporter, so an export can be imported again.
+ */
+public class AnimalExporter {
+
+    public enum Format { CSV, JSON_LINES }
+
+    private static final int BUFFER = 64 * 1024;
+    private static final int PROGRESS_EVERY = 1000;      // rows between progress callbacks
+
+    private static final String[] COLUMNS = {
+            "id", "name", "species", "age", "inclosure_id", "sex",
+            "color", "arrival_date", "health_note", "birth_date"
+    };
+
+    /** Called from the export thread every PROGRESS_EVERY rows. total is a COUNT(*) taken at start. */
+    public interface Progress {
+        void update(long written, long total);
+    }
+
+    private final org.example.TierheimService service;
+    private volatile boolean cancelled;
+
+    public AnimalExporter(org.example.TierheimService service) {
+        this.service = service;
+    }
+
+    /** Stops at the next row; the partial file is removed. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Format and compression from the file name: .csv / .jsonl, each optionally followed by .gz. */
+    public static Format formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+        return (name.endsWith(".jsonl") || name.endsWith(".ndjson")) ? Format.JSON_LINES : Format.CSV;
+    }
+
+    public static boolean isGzip(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    /**
+     * Runs the export on the calling thread. Returns the number of rows written,
+     * or -1 if it was cancelled.
+     */
+    public long run(Path target, Format format, boolean gzip, Progress progress) throws IOException, SQLException {
+        long total = service.countALL();
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+
+        long[] written = {0};
+        boolean complete = false;
+        try {
+            try (FileChannel ch = FileChannel.open(part, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                OutputStream out = Channels.newOutputStream(ch);
+                if (gzip) out = new GZIPOutputStream(out, BUFFER);
+                try (Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER)) {
+                    if (format == Format.CSV) writeCsvHeader(w);
+
+                    StringBuilder line = new StringBuilder(256);   // reused for every row
+                    service.streamAll(t -> {
+                        if (cancelled) throw new InterruptedIOException("cancelled");
+                        line.setLength(0);
+                        if (format == Format.CSV) csvLine(line, t);
+                        else jsonLine(line, t);
+                        w.append(line);
+                        if (++written[0] % PROGRESS_EVERY == 0 && progress != null) {
+                            progress.update(written[0], total);
+                        }
+                    });
+                }
+                ch.force(false);
+            }
+            Files.move(part, target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            complete = true;
+        } catch (InterruptedIOException e) {
+            if (!cancelled) throw e;
+            return -1;
+        } finally {
+            if (!complete) Files.deleteIfExists(part);
+        }
+        if (progress != null) progress.update(written[0], Math.max(total, written[0]));
+        return written[0];
+    }
+
+    /* ---------- CSV ---------- */
+
+    private static void writeCsvHeader(Writer w) throws IOException {
+        w.write(String.join(",", COLUMNS));
+        w.write('\n');
+    }
+
+    private static void csvLine(StringBuilder sb, org.example.Tier t) {
+        sb.append(t.getId()).append(',');
+        csv(sb, t.getName()).append(',');
+        csv(sb, t.getSpecies()).append(',');
+        value(sb, t.getAge()).append(',');
+        value(sb, t.getInclosureId()).append(',');
+        csv(sb, t.getSex()).append(',');
+        csv(sb, t.getColor()).append(',');
+        value(sb, t.getArrivalDate()).append(',');
+        csv(sb, t.getHealthNote()).append(',');
+        value(sb, t.getBirthDate()).append('\n');
+    }
+
+    /** Quotes only when needed (separator, quote or line break in the text). */
+    private static StringBuilder csv(StringBuilder sb, String s) {
+        if (s == null) return sb;
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char ch = s.charAt(i);
+            quote = ch == ',' || ch == ';' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) return sb.append(s);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"') sb.append('"');
+            sb.append(ch);                              // line breaks stay inside the quotes (RFC 4180)
+        }
+        return sb.append('"');
+    }
+
+    private static StringBuilder value(StringBuilder sb, Object v) {
+        return (v == null) ? sb : sb.append(v);
+    }
+
+    /* ---------- JSON Lines ---------- */
+
+    private static void jsonLine(StringBuilder sb, org.example.Tier t) {
+        sb.append("{\"id\":").append(t.getId());
+        sb.append(",\"name\":");         json(sb, t.getName());
+        sb.append(",\"species\":");      json(sb, t.getSpecies());
+        sb.append(",\"age\":").append(t.getAge());            // null -> null
+        sb.append(",\"inclosure_id\":").append(t.getInclosureId());
+        sb.append(",\"sex\":");          json(sb, t.getSex());
+        sb.append(",\"color\":");        json(sb, t.getColor());
+        sb.append(",\"arrival_date\":"); json(sb, t.getArrivalDate());
+        sb.append(",\"health_note\":");  json(sb, t.getHealthNote());
+        sb.append(",\"birth_date\":");   json(sb, t.getBirthDate());
+        sb.append("}\n");
+    }
+
+    private static void json(StringBuilder sb, LocalDate d) {
+        if (d == null) sb.append("null");
+        else sb.append('"').append(d).append('"');
+    }
+
+    private static void json(StringBuilder sb, String s) {
+        if (s == null) { sb.append("null"); return; }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,310 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * In-memory search index over all animals for the Animals tab search bar.
+ * - Indexed: words of name, species and color (prefix match), sex, enclosure id, animal id.
+ * - Query: space separated terms, all must match. "field:value" restricts a term to one field
+ *   (name, species, color, sex, enclosure), a bare term matches name/species/color or the id.
+ *   Example: "species:cat enclosure:3 luna".
+ * - The most selective term is looked up in the word maps, the others are checked per candidate,
+ *   so a query costs about the size of its smallest result, not of the table.
+ * - add/remove keep it current; build() loads it once in the background.
+ * Must be used on the EDT (except build()).
+ */
+public class AnimalSearchIndex {
+
+    private enum Field { NAME, SPECIES, COLOR, SEX, ENCLOSURE, ANY }
+
+    private static final Map<String, Field> FIELD_NAMES = Map.of(
+            "name", Field.NAME,
+            "species", Field.SPECIES,
+            "color", Field.COLOR,
+            "sex", Field.SEX,
+            "enclosure", Field.ENCLOSURE,
+            "inclosure", Field.ENCLOSURE);
+
+    private static final class Term {
+        final Field field;
+        final String value;         // lower case
+
+        Term(Field field, String value) {
+            this.field = field;
+            this.value = value;
+        }
+    }
+
+    /** The indexed fields of one animal. */
+    private static final class Doc {
+        final int id;
+        final String[] name;
+        final String[] species;
+        final String[] color;
+        final String sex;
+        final Integer enclosure;
+
+        Doc(org.example.Tier t) {
+            id = t.getId();
+            name = words(t.getName());
+            species = words(t.getSpecies());
+            color = words(t.getColor());
+            sex = lower(t.getSex());
+            enclosure = t.getInclosureId();
+        }
+    }
+
+    /** One complete index; built off the EDT and installed as a whole. */
+    public static final class Snapshot {
+        final Map<Integer, Doc> docs = new HashMap<>();
+        final Map<Field, TreeMap<String, Set<Integer>>> words = new EnumMap<>(Field.class);
+        final Map<String, Set<Integer>> bySex = new HashMap<>();
+        final Map<Integer, Set<Integer>> byEnclosure = new HashMap<>();
+
+        Snapshot() {
+            words.put(Field.NAME, new TreeMap<>());
+            words.put(Field.SPECIES, new TreeMap<>());
+            words.put(Field.COLOR, new TreeMap<>());
+        }
+
+        void add(org.example.Tier t) {
+            remove(t.getId());
+            Doc d = new Doc(t);
+            docs.put(d.id, d);
+            post(words.get(Field.NAME), d.name, d.id);
+            post(words.get(Field.SPECIES), d.species, d.id);
+            post(words.get(Field.COLOR), d.color, d.id);
+            if (d.sex != null) bySex.computeIfAbsent(d.sex, k -> new HashSet<>()).add(d.id);
+            if (d.enclosure != null) byEnclosure.computeIfAbsent(d.enclosure, k -> new HashSet<>()).add(d.id);
+        }
+
+        void remove(int id) {
+            Doc d = docs.remove(id);
+            if (d == null) return;
+            unpost(words.get(Field.NAME), d.name, id);
+            unpost(words.get(Field.SPECIES), d.species, id);
+            unpost(words.get(Field.COLOR), d.color, id);
+            if (d.sex != null) unpost(bySex, d.sex, id);
+            if (d.enclosure != null) unpost(byEnclosure, d.enclosure, id);
+        }
+
+        private static void post(Map<String, Set<Integer>> map, String[] keys, int id) {
+            for (String k : keys) map.computeIfAbsent(k, x -> new HashSet<>()).add(id);
+        }
+
+        private static void unpost(Map<String, Set<Integer>> map, String[] keys, int id) {
+            for (String k : keys) unpost(map, k, id);
+        }
+
+        private static <K> void unpost(Map<K, Set<Integer>> map, K key, int id) {
+            Set<Integer> ids = map.get(key);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) map.remove(key);
+        }
+    }
+
+    private Snapshot data;                       // null until the first build is done
+    private List<Object> changesDuringBuild;     // Tier = add, Integer = remove; null = no build running
+
+    /* ---------- maintenance ---------- */
+
+    public boolean isReady() {
+        return data != null;
+    }
+
+    public int size() {
+        return data == null ? 0 : data.docs.size();
+    }
+
+    public void add(org.example.Tier t) {
+        if (changesDuringBuild != null) changesDuringBuild.add(t);
+        if (data != null) data.add(t);
+    }
+
+    public void remove(int id) {
+        if (changesDuringBuild != null) changesDuringBuild.add(id);
+        if (data != null) data.remove(id);
+    }
+
+    /** Call on the EDT before starting build() in the background. */
+    public void buildStarted() {
+        changesDuringBuild = new ArrayList<>();
+    }
+
+    /** Reads all animals (streamed); runs on a background thread. The result goes to install(). */
+    public static Snapshot build(org.example.TierheimService service) throws SQLException, java.io.IOException {
+        Snapshot d = new Snapshot();
+        service.streamAll(d::add);
+        return d;
+    }
+
+    /** On the EDT: takes over a finished build and replays what changed meanwhile. */
+    public void install(Snapshot d) {
+        if (changesDuringBuild != null) {
+            for (Object c : changesDuringBuild) {
+                if (c instanceof org.example.Tier t) d.add(t);
+                else d.remove((Integer) c);
+            }
+        }
+        changesDuringBuild = null;
+        data = d;
+    }
+
+    /** On the EDT when the build failed. */
+    public void buildFailed() {
+        changesDuringBuild = null;
+    }
+
+    /* ---------- search ---------- */
+
+    /** Matching ids, highest (newest) first; null for a blank query or while not ready. */
+    public int[] search(String query) {
+        if (data == null) return null;
+        List<Term> terms = parse(query);
+        if (terms.isEmpty()) return null;
+
+        // drive with the term that has the fewest candidates, check the rest per animal
+        Term driver = null;
+        long best = Long.MAX_VALUE;
+        for (Term t : terms) {
+            long n = estimate(t, best);
+            if (n < best) {
+                best = n;
+                driver = t;
+            }
+        }
+        if (best == 0) return new int[0];
+
+        Set<Integer> candidates = candidates(driver);
+        int[] out = new int[candidates.size()];
+        int n = 0;
+        for (int id : candidates) {
+            Doc d = data.docs.get(id);
+            if (d == null) continue;
+            boolean all = true;
+            for (Term t : terms) {
+                if (t != driver && !matches(d, t)) { all = false; break; }
+            }
+            if (all) out[n++] = id;
+        }
+        out = Arrays.copyOf(out, n);
+        Arrays.sort(out);
+        for (int i = 0, j = n - 1; i < j; i++, j--) {      // descending, like the table
+            int tmp = out[i]; out[i] = out[j]; out[j] = tmp;
+        }
+        return out;
+    }
+
+    private static List<Term> parse(String query) {
+        List<Term> terms = new ArrayList<>();
+        if (query == null) return terms;
+        for (String raw : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (raw.isEmpty()) continue;
+            int colon = raw.indexOf(':');
+            Field f = (colon > 0) ? FIELD_NAMES.get(raw.substring(0, colon)) : null;
+            if (f != null) {
+                String v = raw.substring(colon + 1);
+                if (!v.isEmpty()) terms.add(new Term(f, v));
+            } else {
+                terms.add(new Term(Field.ANY, raw));
+            }
+        }
+        return terms;
+    }
+
+    /** Number of candidates of a term, counted only up to limit. */
+    private long estimate(Term t, long limit) {
+        return switch (t.field) {
+            case NAME, SPECIES, COLOR -> prefixCount(data.words.get(t.field), t.value, limit);
+            case SEX -> sizeOf(data.bySex.get(t.value));
+            case ENCLOSURE -> {
+                Integer enc = parseInt(t.value);
+                yield enc == null ? 0 : sizeOf(data.byEnclosure.get(enc));
+            }
+            case ANY -> {
+                long n = (parseInt(t.value) != null) ? 1 : 0;
+                for (Field f : List.of(Field.NAME, Field.SPECIES, Field.COLOR)) {
+                    if (n >= limit) break;
+                    n += prefixCount(data.words.get(f), t.value, limit - n);
+                }
+                yield n;
+            }
+        };
+    }
+
+    private Set<Integer> candidates(Term t) {
+        Set<Integer> out = new HashSet<>();
+        switch (t.field) {
+            case NAME, SPECIES, COLOR -> prefixRange(data.words.get(t.field), t.value).values().forEach(out::addAll);
+            case SEX -> out.addAll(data.bySex.getOrDefault(t.value, Set.of()));
+            case ENCLOSURE -> {
+                Integer enc = parseInt(t.value);
+                if (enc != null) out.addAll(data.byEnclosure.getOrDefault(enc, Set.of()));
+            }
+            case ANY -> {
+                Integer id = parseInt(t.value);
+                if (id != null && data.docs.containsKey(id)) out.add(id);
+                for (Field f : List.of(Field.NAME, Field.SPECIES, Field.COLOR)) {
+                    prefixRange(data.words.get(f), t.value).values().forEach(out::addAll);
+                }
+            }
+        }
+        return out;
+    }
+
+    private static boolean matches(Doc d, Term t) {
+        return switch (t.field) {
+            case NAME -> anyStartsWith(d.name, t.value);
+            case SPECIES -> anyStartsWith(d.species, t.value);
+            case COLOR -> anyStartsWith(d.color, t.value);
+            case SEX -> t.value.equals(d.sex);
+            case ENCLOSURE -> d.enclosure != null && t.value.equals(d.enclosure.toString());
+            case ANY -> anyStartsWith(d.name, t.value) || anyStartsWith(d.species, t.value)
+                    || anyStartsWith(d.color, t.value) || t.value.equals(Integer.toString(d.id));
+        };
+    }
+
+    /* ---------- helpers ---------- */
+
+    private static SortedMap<String, Set<Integer>> prefixRange(TreeMap<String, Set<Integer>> map, String prefix) {
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static long prefixCount(TreeMap<String, Set<Integer>> map, String prefix, long limit) {
+        long n = 0;
+        for (Set<Integer> ids : prefixRange(map, prefix).values()) {
+            n += ids.size();
+            if (n >= limit) break;
+        }
+        return n;
+    }
+
+    private static boolean anyStartsWith(String[] words, String prefix) {
+        for (String w : words) {
+            if (w.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static long sizeOf(Set<Integer> ids) {
+        return ids == null ? 0 : ids.size();
+    }
+
+    private static Integer parseInt(String s) {
+        try { return Integer.valueOf(s); }
+        catch (NumberFormatException e) { return null; }
+    }
+
+    private static String lower(String s) {
+        return (s == null || s.isBlank()) ? null : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Lower-case words; "Guinea pig" -> ["guinea", "pig"]. */
+    private static String[] words(String s) {
+        if (s == null || s.isBlank()) return new String[0];
+        return Arrays.stream(s.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(w -> !w.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,336 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar storage for animal rows, instead of one Tier object per animal.
+ * - id, age, enclosure id: int arrays; dates: epoch-day ints (NULL marks a missing value).
+ * - species, sex, color: int codes into Dictionaries, so each distinct value exists once
+ *   however many animals have it. Stores can share one Dictionaries (e.g. the pages of a table
+ *   model); it lives as long as the stores using it.
+ * - name, health note: UTF-8 bytes in one byte array, addressed by offset.
+ * About 50 bytes per animal plus the name, against several hundred for a Tier with its
+ * boxed numbers, LocalDates and per-row strings. Values are decoded on access (get / column getters).
+ * Not thread-safe; build it on one thread and hand it over (with the Dictionaries it uses).
+ */
+public final class AnimalStore {
+
+    private static final int NULL = Integer.MIN_VALUE;
+
+    private final Dictionaries dictionaries;
+    private int size;
+    private int[] ids;
+    private int[] ages;
+    private int[] enclosures;
+    private int[] arrivalDays;
+    private int[] birthDays;
+    private int[] species;
+    private int[] sex;
+    private int[] colors;
+    private int[] nameRefs;         // offset into text, -1 = null
+    private int[] noteRefs;
+
+    private byte[] text = new byte[256];
+    private int textUsed;
+    private int textLive;           // bytes still referenced; the rest is left over from removed/replaced rows
+
+    public AnimalStore() {
+        this(16);
+    }
+
+    public AnimalStore(int capacity) {
+        this(capacity, new Dictionaries());
+    }
+
+    public AnimalStore(int capacity, Dictionaries dictionaries) {
+        this.dictionaries = dictionaries;
+        int c = Math.max(1, capacity);
+        ids = new int[c];
+        ages = new int[c];
+        enclosures = new int[c];
+        arrivalDays = new int[c];
+        birthDays = new int[c];
+        species = new int[c];
+        sex = new int[c];
+        colors = new int[c];
+        nameRefs = new int[c];
+        noteRefs = new int[c];
+    }
+
+    public static AnimalStore of(List<org.example.Tier> rows) {
+        return of(rows, new Dictionaries());
+    }
+
+    public static AnimalStore of(List<org.example.Tier> rows, Dictionaries dictionaries) {
+        AnimalStore s = new AnimalStore(rows.size(), dictionaries);
+        for (org.example.Tier t : rows) s.add(t);
+        return s;
+    }
+
+    /** All animals, newest first, streamed straight into the columns (no List<Tier> in between). */
+    public static AnimalStore load(org.example.TierheimService service) throws SQLException, java.io.IOException {
+        AnimalStore s = new AnimalStore(1024);
+        service.streamAll(s::add);
+        s.trim();
+        return s;
+    }
+
+    /* ---------- write ---------- */
+
+    public int size() {
+        return size;
+    }
+
+    public void add(org.example.Tier t) {
+        insert(size, t);
+    }
+
+    public void insert(int index, org.example.Tier t) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException(index);
+        ensureCapacity(size + 1);
+        int tail = size - index;
+        if (tail > 0) {
+            System.arraycopy(ids, index, ids, index + 1, tail);
+            System.arraycopy(ages, index, ages, index + 1, tail);
+            System.arraycopy(enclosures, index, enclosures, index + 1, tail);
+            System.arraycopy(arrivalDays, index, arrivalDays, index + 1, tail);
+            System.arraycopy(birthDays, index, birthDays, index + 1, tail);
+            System.arraycopy(species, index, species, index + 1, tail);
+            System.arraycopy(sex, index, sex, index + 1, tail);
+            System.arraycopy(colors, index, colors, index + 1, tail);
+            System.arraycopy(nameRefs, index, nameRefs, index + 1, tail);
+            System.arraycopy(noteRefs, index, noteRefs, index + 1, tail);
+        }
+        size++;
+        write(index, t);
+    }
+
+    public void set(int index, org.example.Tier t) {
+        check(index);
+        release(nameRefs[index]);
+        release(noteRefs[index]);
+        write(index, t);
+        compactIfWasteful();
+    }
+
+    public void remove(int index) {
+        check(index);
+        release(nameRefs[index]);
+        release(noteRefs[index]);
+        int tail = size - index - 1;
+        if (tail > 0) {
+            System.arraycopy(ids, index + 1, ids, index, tail);
+            System.arraycopy(ages, index + 1, ages, index, tail);
+            System.arraycopy(enclosures, index + 1, enclosures, index, tail);
+            System.arraycopy(arrivalDays, index + 1, arrivalDays, index, tail);
+            System.arraycopy(birthDays, index + 1, birthDays, index, tail);
+            System.arraycopy(species, index + 1, species, index, tail);
+            System.arraycopy(sex, index + 1, sex, index, tail);
+            System.arraycopy(colors, index + 1, colors, index, tail);
+            System.arraycopy(nameRefs, index + 1, nameRefs, index, tail);
+            System.arraycopy(noteRefs, index + 1, noteRefs, index, tail);
+        }
+        size--;
+        compactIfWasteful();
+    }
+
+    private void write(int i, org.example.Tier t) {
+        ids[i] = t.getId();
+        ages[i] = (t.getAge() == null) ? NULL : t.getAge();
+        enclosures[i] = (t.getInclosureId() == null) ? NULL : t.getInclosureId();
+        arrivalDays[i] = (t.getArrivalDate() == null) ? NULL : (int) t.getArrivalDate().toEpochDay();
+        birthDays[i] = (t.getBirthDate() == null) ? NULL : (int) t.getBirthDate().toEpochDay();
+        species[i] = dictionaries.species.encode(t.getSpecies());
+        sex[i] = dictionaries.sex.encode(t.getSex());
+        colors[i] = dictionaries.colors.encode(t.getColor());
+        nameRefs[i] = putText(t.getName());
+        noteRefs[i] = putText(t.getHealthNote());
+    }
+
+    /** Drops spare capacity, e.g. after a bulk load. */
+    public void trim() {
+        resize(Math.max(1, size));
+        compact();
+        if (text.length > textUsed) text = Arrays.copyOf(text, Math.max(16, textUsed));
+    }
+
+    /* ---------- read ---------- */
+
+    public int id(int i) { check(i); return ids[i]; }
+    public String name(int i) { check(i); return getText(nameRefs[i]); }
+    public String species(int i) { check(i); return dictionaries.species.decode(species[i]); }
+    public Integer age(int i) { check(i); return boxed(ages[i]); }
+    public Integer enclosureId(int i) { check(i); return boxed(enclosures[i]); }
+    public String sex(int i) { check(i); return dictionaries.sex.decode(sex[i]); }
+    public String color(int i) { check(i); return dictionaries.colors.decode(colors[i]); }
+    public LocalDate arrivalDate(int i) { check(i); return date(arrivalDays[i]); }
+    public String healthNote(int i) { check(i); return getText(noteRefs[i]); }
+    public LocalDate birthDate(int i) { check(i); return date(birthDays[i]); }
+
+    /** A Tier for code that needs the object (dialogs, service calls). */
+    public org.example.Tier get(int i) {
+        return new org.example.Tier(id(i), name(i), species(i), age(i), null, enclosureId(i),
+                sex(i), color(i), arrivalDate(i), healthNote(i), birthDate(i));
+    }
+
+    /** Index of the id in a store sorted by id descending (as the table is), or -1. */
+    public int indexOfId(int id) {
+        int lo = 0, hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int midId = ids[mid];
+            if (midId == id) return mid;
+            if (midId > id) lo = mid + 1;
+            else hi = mid - 1;
+        }
+        return -1;
+    }
+
+    private static Integer boxed(int v) {
+        return (v == NULL) ? null : v;
+    }
+
+    private static LocalDate date(int epochDay) {
+        return (epochDay == NULL) ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private void check(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+    }
+
+    /* ---------- capacity ---------- */
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) return;
+        resize(Math.max(needed, ids.length + (ids.length >> 1) + 1));
+    }
+
+    private void resize(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        enclosures = Arrays.copyOf(enclosures, capacity);
+        arrivalDays = Arrays.copyOf(arrivalDays, capacity);
+        birthDays = Arrays.copyOf(birthDays, capacity);
+        species = Arrays.copyOf(species, capacity);
+        sex = Arrays.copyOf(sex, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        nameRefs = Arrays.copyOf(nameRefs, capacity);
+        noteRefs = Arrays.copyOf(noteRefs, capacity);
+    }
+
+    /* ---------- text heap: [varint length][UTF-8 bytes] ---------- */
+
+    private int putText(String s) {
+        if (s == null) return -1;
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        int need = 5 + b.length;
+        if (textUsed + need > text.length) {
+            text = Arrays.copyOf(text, Math.max(textUsed + need, text.length * 2));
+        }
+        int ref = textUsed;
+        int len = b.length;
+        while (len >= 0x80) {
+            text[textUsed++] = (byte) (len | 0x80);
+            len >>>= 7;
+        }
+        text[textUsed++] = (byte) len;
+        System.arraycopy(b, 0, text, textUsed, b.length);
+        textUsed += b.length;
+        textLive += textUsed - ref;
+        return ref;
+    }
+
+    private String getText(int ref) {
+        if (ref < 0) return null;
+        int pos = ref;
+        int len = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = text[pos++];
+            len |= (b & 0x7F) << shift;
+            if (b >= 0) break;
+        }
+        return new String(text, pos, len, StandardCharsets.UTF_8);
+    }
+
+    /** Bytes taken by the entry at ref (length prefix included). */
+    private static int entryLength(byte[] buf, int ref) {
+        int pos = ref;
+        int len = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buf[pos++];
+            len |= (b & 0x7F) << shift;
+            if (b >= 0) break;
+        }
+        return pos - ref + len;
+    }
+
+    private void release(int ref) {
+        if (ref >= 0) textLive -= entryLength(text, ref);
+    }
+
+    private void compactIfWasteful() {
+        if (textUsed > 4096 && textLive < textUsed / 2) compact();
+    }
+
+    /** Rewrites the text heap with only the entries still referenced. */
+    private void compact() {
+        if (textLive == textUsed) return;
+        byte[] old = text;
+        text = new byte[Math.max(256, textLive)];
+        textUsed = 0;
+        textLive = 0;
+        for (int i = 0; i < size; i++) {
+            nameRefs[i] = copyEntry(old, nameRefs[i]);
+            noteRefs[i] = copyEntry(old, noteRefs[i]);
+        }
+    }
+
+    private int copyEntry(byte[] from, int ref) {
+        if (ref < 0) return -1;
+        int n = entryLength(from, ref);
+        if (textUsed + n > text.length) text = Arrays.copyOf(text, Math.max(textUsed + n, text.length * 2));
+        System.arraycopy(from, ref, text, textUsed, n);
+        int newRef = textUsed;
+        textUsed += n;
+        textLive += n;
+        return newRef;
+    }
+
+    /* ---------- dictionaries ---------- */
+
+    /**
+     * The value tables for species, sex and color. Shared by the stores of one owner and
+     * released with it (a table model starts a new one on reload), so values that are no
+     * longer shown do not stay in memory for the life of the process.
+     * Not thread-safe, like the stores: use the stores sharing one on one thread.
+     */
+    public static final class Dictionaries {
+        private final Dictionary species = new Dictionary();
+        private final Dictionary sex = new Dictionary();
+        private final Dictionary colors = new Dictionary();
+    }
+
+    /** String <-> int code for low-cardinality columns. Code 0 is null. */
+    private static final class Dictionary {
+        private final java.util.Map<String, Integer> codes = new java.util.HashMap<>();
+        private final java.util.List<String> values = new java.util.ArrayList<>(java.util.Collections.singletonList(null));
+
+        int encode(String s) {
+            if (s == null) return 0;
+            Integer c = codes.get(s);
+            if (c != null) return c;
+            int code = values.size();
+            values.add(s);
+            codes.put(s, code);
+            return code;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+    }
+}
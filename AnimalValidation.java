@@ -0,0 +1,63 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Input rules for a new animal, shared by AddAnimalDialog and the CSV import.
+ * All inputs are raw (untrimmed) texts as typed or read from a file.
+ */
+public final class AnimalValidation {
+
+    private AnimalValidation() {}
+
+    /** Returns the first problem as a user message, or null if the input is valid. */
+    public static String validate(String name, String species, String inclosureId, String age,
+                                  String sex, String arrivalDate, String birthDate) {
+        if (trim(name).isEmpty()) return "Name is required.";
+        if (trim(species).isEmpty()) return "Species is required.";
+        if (parseInt(inclosureId) == null) return "Please enter a valid Inclosure ID (number).";
+        // age optional, but not negative
+        if (!trim(age).isEmpty() && (parseInt(age) == null || parseInt(age) < 0)) {
+            return "Age must be a number (0 or more) or empty.";
+        }
+        if (normalizeSex(sex) == null) return "Sex must be M, F or U.";
+        // dates optional but if filled then must parse
+        if (!trim(arrivalDate).isEmpty() && parseDate(arrivalDate) == null) {
+            return "Arrival Date must be YYYY-MM-DD or empty.";
+        }
+        if (!trim(birthDate).isEmpty() && parseDate(birthDate) == null) {
+            return "Birth Date must be YYYY-MM-DD or empty.";
+        }
+        return null;
+    }
+
+    /** M, F or U (empty = U, any case), or null if it is something else. */
+    public static String normalizeSex(String s) {
+        String v = trim(s).toUpperCase(Locale.ROOT);
+        if (v.isEmpty()) return "U";
+        return (v.equals("M") || v.equals("F") || v.equals("U")) ? v : null;
+    }
+
+    /** Integer or null if empty/not a number. */
+    public static Integer parseInt(String s) {
+        try { return Integer.parseInt(trim(s)); }
+        catch (Exception e) { return null; }
+    }
+
+    /** YYYY-MM-DD or null if empty/invalid. */
+    public static LocalDate parseDate(String s) {
+        try { return LocalDate.parse(trim(s)); }
+        catch (Exception e) { return null; }
+    }
+
+    /** If birth date is empty, derive from age (today - age). */
+    public static LocalDate resolveBirthDate(LocalDate birthDate, Integer age) {
+        if (birthDate != null) return birthDate;
+        return (age == null) ? null : LocalDate.now().minusYears(age);
+    }
+
+    public static String trim(String s) {
+        return (s == null) ? "" : s.trim();
+    }
+}
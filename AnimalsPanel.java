@@ -1,14 +1,9 @@
 package org.example;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.time.LocalDate;
-import java.util.List;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.nio.file.Path;
 
 /** Animals tab (grid + actions). */
 public class AnimalsPanel extends JPanel {
@@ -19,12 +14,29 @@ public class AnimalsPanel extends JPanel {
     private final JTable table = new JTable();
     private final JButton btnAdd = new JButton("Add");
     private final JButton btnDelete = new JButton("Delete");
+    private final JButton btnMove = new JButton("Move…");
+    private final JButton btnHealthNote = new JButton("Health note…");
     private final JButton btnRefresh = new JButton("Refresh");
     private final JButton btnCheckCapacity = new JButton("Check Capacity");
+    private final JButton btnImport = new JButton("Import CSV…");
+    private final JButton btnExport = new JButton("Export…");
+    private final JProgressBar jobProgress = new JProgressBar(0, 1000);
+    private final JButton btnCancelJob = new JButton("Cancel");
     private final JLabel capacityLabel = new JLabel("Current: ? / " + MAX_CAPACITY);
+    private final JTextField searchField = new JTextField(28);
+    private final JLabel searchLabel = new JLabel(" ");
+    private final JLabel journalLabel = new JLabel(" ");
 
     // Your existing service
     private final org.example.TierheimService service = new org.example.TierheimService();
+    private final org.example.TierTableModel model = new org.example.TierTableModel(service);
+    private int currentCount = -1;      // last known number of animals, -1 = unknown
+    // edits from other desks arrive as deltas instead of a full reload
+    private final org.example.ChangeFeed changeFeed = new org.example.ChangeFeed(service, this::applyRemoteChanges);
+    private Runnable cancelJob;         // != null while an import/export runs
+    private final org.example.AnimalSearchIndex searchIndex = new org.example.AnimalSearchIndex();
+    // writes made while the database is away; replayed rows arrive through the listener
+    private final org.example.WriteJournal journal = org.example.WriteJournal.get();
 
     public AnimalsPanel() {
         setLayout(new BorderLayout());
@@ -34,6 +46,9 @@ public class AnimalsPanel extends JPanel {
         buildTable();
         wireActions();
 
+        org.example.LocalSnapshot.setAnimalSource(model::firstPageRows);
+        journal.addListener(this::applyReplay);
+        showPending(journal.getPendingCount());
         loadData();
         refreshCapacityLabel();
     }
@@ -44,31 +59,50 @@ public class AnimalsPanel extends JPanel {
         JPanel left = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 8));
         left.add(btnAdd);
         left.add(btnDelete);
+        left.add(btnMove);
+        left.add(btnHealthNote);
         left.add(btnRefresh);
         left.add(btnCheckCapacity);
+        left.add(btnImport);
+        left.add(btnExport);
+
+        // shown only while an import/export runs
+        jobProgress.setStringPainted(true);
+        jobProgress.setVisible(false);
+        btnCancelJob.setVisible(false);
 
         JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 8));
+        right.add(jobProgress);
+        right.add(btnCancelJob);
+        right.add(journalLabel);
         right.add(capacityLabel);
 
+        searchField.setToolTipText("<html>Words are matched by prefix, all must match.<br>"
+                + "Fields: name: species: color: sex: enclosure:<br>"
+                + "Example: species:cat enclosure:3 luna</html>");
+        JPanel search = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        search.add(new JLabel("Search:"));
+        search.add(searchField);
+        search.add(searchLabel);
+
         JPanel top = new JPanel(new BorderLayout());
         top.add(left, BorderLayout.WEST);
         top.add(right, BorderLayout.EAST);
+        top.add(search, BorderLayout.SOUTH);
 
         add(top, BorderLayout.NORTH);
     }
 
     private void buildTable() {
-        DefaultTableModel model = new DefaultTableModel(
-                new Object[][]{},
-                new Object[]{
-                        "ID", "Name", "Species", "Age",
-                        "Inclosure ID", "Sex", "Color",
-                        "Arrival date", "HealthNote"
-                }) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        };
+        // rows are paged in from the DB while scrolling (see TierTableModel)
+        model.setErrorHandler(ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Load failed: " + ex.getMessage());
+        });
         table.setModel(model);
         table.setRowHeight(22);
+        // several rows at once: Delete, Move… and Health note… act on the whole selection
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         table.getTableHeader().setReorderingAllowed(false);
         add(new JScrollPane(table), BorderLayout.CENTER);
     }
@@ -82,47 +116,178 @@ public class AnimalsPanel extends JPanel {
         });
         btnAdd.addActionListener((ActionEvent e) -> add());
         btnDelete.addActionListener((ActionEvent e) -> onDelete());
+        btnMove.addActionListener((ActionEvent e) -> onMove());
+        btnHealthNote.addActionListener((ActionEvent e) -> onHealthNote());
         btnCheckCapacity.addActionListener((ActionEvent e) -> checkCapacityFromDb());
+        // the index answers in well under a millisecond, so every keystroke searches
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override public void insertUpdate(javax.swing.event.DocumentEvent e) { applySearch(); }
+            @Override public void removeUpdate(javax.swing.event.DocumentEvent e) { applySearch(); }
+            @Override public void changedUpdate(javax.swing.event.DocumentEvent e) { applySearch(); }
+        });
+        searchField.addActionListener((ActionEvent e) -> applySearch());
+        btnImport.addActionListener((ActionEvent e) -> importCsv());
+        btnExport.addActionListener((ActionEvent e) -> exportAnimals());
+        btnCancelJob.addActionListener((ActionEvent e) -> {
+            if (cancelJob != null) cancelJob.run();
+            btnCancelJob.setEnabled(false);
+            jobProgress.setString("Cancelling…");
+        });
     }
 
     /* ---------- Data ops ---------- */
 
+    private static final String PREFETCH_KEY = "animals";
+
+    /** Change-feed mark and the first page, read together. */
+    private static final class FirstLoad {
+        final org.example.ChangeFeed.Mark mark;
+        final java.util.List<org.example.Tier> firstPage;
+
+        FirstLoad(org.example.ChangeFeed.Mark mark, java.util.List<org.example.Tier> firstPage) {
+            this.mark = mark;
+            this.firstPage = firstPage;
+        }
+    }
+
+    // the change-feed mark is taken first, so nothing between it and the first page is missed
+    private static FirstLoad readFirstLoad(org.example.TierheimService service) throws Exception {
+        org.example.ChangeFeed.Mark mark = org.example.ChangeFeed.readMark(service);
+        return new FirstLoad(mark, service.findPage(null, org.example.TierTableModel.PAGE_SIZE));
+    }
+
+    /** Starts reading the tab's first page at startup, before the tab is built. */
+    public static void prefetch() {
+        org.example.TierheimService service = new org.example.TierheimService();
+        org.example.Prefetch.start(PREFETCH_KEY, () -> readFirstLoad(service));
+    }
+
+    private boolean warmStartDone;      // the local snapshot is shown at most once, on the first load
+
     private void loadData() {
-        try {
-            DefaultTableModel m = (DefaultTableModel) table.getModel();
-            m.setRowCount(0);
-            List<org.example.Tier> list = service.findAll();
-
-            for (org.example.Tier a : list) {
-                Integer age = a.getAge();
-                Integer incId = a.getInclosureId();
-                LocalDate arrival = a.getArrivalDate();
-
-                m.addRow(new Object[]{
-                        a.getId(),
-                        a.getName(),
-                        a.getSpecies(),
-                        age,
-                        incId,
-                        a.getSex(),
-                        a.getColor(),
-                        arrival,
-                        a.getHealthNote()
-                });
+        if (warmStartDone) {
+            loadFromDatabase(null);
+            return;
+        }
+        warmStartDone = true;
+        // the snapshot is read by the startup prefetch; wait for it off the EDT
+        org.example.DbExecutor.run(this, "load", org.example.LocalSnapshot::await, this::loadFromDatabase, ex -> {
+            ex.printStackTrace();
+            loadFromDatabase(null);
+        });
+    }
+
+    private void loadFromDatabase(org.example.LocalSnapshot snapshot) {
+        // warm start: show the last session's first page at once, reconcile below
+        boolean warm = snapshot != null && !snapshot.getAnimals().isEmpty();
+        if (warm) {
+            model.reload(snapshot.getAnimals());
+            searchLabel.setText("Showing the local snapshot of " + new java.util.Date(snapshot.getSavedAt()) + " …");
+        }
+
+        org.example.DbExecutor.run(this, "load", () -> {
+            FirstLoad first = org.example.Prefetch.take(PREFETCH_KEY, () -> readFirstLoad(service));
+            changeFeed.resetTo(first.mark);
+            return first;
+        }, first -> {
+            if (warm) {
+                model.reconcileFirstPage(first.firstPage);      // patches only what changed since the snapshot
+                searchLabel.setText(" ");
+            } else {
+                model.reload(first.firstPage);
             }
-        } catch (Exception ex) {
+            org.example.LocalSnapshot.saveQuietly();
+            rebuildSearchIndex();
+        }, ex -> {
             ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Load failed: " + ex.getMessage());
+            if (warm) {
+                // database unreachable: keep showing the snapshot instead of an empty table
+                searchLabel.setText("Offline: showing the local snapshot of "
+                        + new java.util.Date(snapshot.getSavedAt()) + " (" + ex.getMessage() + ")");
+                return;
+            }
+            model.reload();
+            rebuildSearchIndex();
+        });
+    }
+
+    private void applyRemoteChanges(org.example.ChangeFeed.Delta delta) {
+        delta.getInserted().forEach(model::insertRow);
+        delta.getUpdated().forEach(model::updateRow);
+        delta.getDeletedIds().forEach(model::removeRow);
+        delta.getInserted().forEach(searchIndex::add);
+        delta.getUpdated().forEach(searchIndex::add);
+        delta.getDeletedIds().forEach(searchIndex::remove);
+        adjustCount(delta.getInserted().size() - delta.getDeletedIds().size());
+        if (model.isFiltered()) applySearch();
+    }
+
+    /** Journaled writes reached the database: show inserted rows, drop deleted ones, report conflicts. */
+    private void applyReplay(org.example.WriteJournal.Replay replay) {
+        replay.getInserted().forEach(model::insertRow);
+        replay.getDeletedIds().forEach(model::removeRow);   // still shown if deleted in an earlier session
+        replay.getInserted().forEach(searchIndex::add);
+        replay.getDeletedIds().forEach(searchIndex::remove);
+        if (model.isFiltered()) applySearch();
+        if (!replay.getInserted().isEmpty() || !replay.getDeletedIds().isEmpty()) refreshCapacityLabel();
+        showPending(replay.getPending());
+
+        if (replay.getConflicts().isEmpty()) return;
+        StringBuilder sb = new StringBuilder("These offline changes could not be saved:\n");
+        replay.getConflicts().forEach(c -> sb.append("• ").append(c).append('\n'));
+        JOptionPane.showMessageDialog(this, sb.toString(), "Offline changes", JOptionPane.WARNING_MESSAGE);
+    }
+
+    private void showPending(int pending) {
+        journalLabel.setText(pending == 0 ? " " : pending + " offline change(s) waiting for the database");
+    }
+
+    /* ---------- Search ---------- */
+
+    private void rebuildSearchIndex() {
+        searchIndex.buildStarted();
+        org.example.DbExecutor.run(null, "searchIndex", () -> org.example.AnimalSearchIndex.build(service), built -> {
+            searchIndex.install(built);
+            applySearch();
+        }, ex -> {
+            ex.printStackTrace();
+            searchIndex.buildFailed();
+            searchLabel.setText("Search unavailable: " + ex.getMessage());
+        });
+    }
+
+    private void applySearch() {
+        String q = searchField.getText();
+        if (q.isBlank()) {
+            model.setFilter(null);
+            searchLabel.setText(" ");
+            return;
         }
+        if (!searchIndex.isReady()) {
+            searchLabel.setText("Indexing…");           // applied when the index is installed
+            return;
+        }
+        int[] ids = searchIndex.search(q);
+        model.setFilter(ids);
+        searchLabel.setText(ids == null ? " " : ids.length + " of " + searchIndex.size() + " animals");
     }
 
     private void refreshCapacityLabel() {
-        try {
-            int current = service.countALL();
+        capacityLabel.setText("Current: loading… / " + MAX_CAPACITY);
+        org.example.DbExecutor.run(this, "capacity", service::countALL, current -> {
+            currentCount = current;
             capacityLabel.setText("Current: " + current + " / " + MAX_CAPACITY);
-        } catch (Exception ex) {
+        }, ex -> {
+            currentCount = -1;
             capacityLabel.setText("Current: ? / " + MAX_CAPACITY);
-        }
+        });
+    }
+
+    /** Keeps the label in step with local inserts/deletes without another COUNT(*). */
+    private void adjustCount(int delta) {
+        if (currentCount < 0) return;
+        currentCount += delta;
+        capacityLabel.setText("Current: " + currentCount + " / " + MAX_CAPACITY);
     }
 
     private void add() {
@@ -145,96 +310,354 @@ public class AnimalsPanel extends JPanel {
                 dlg.getBirthDateResolved() // LocalDate or null
         );
 
-        try {
-            service.insert(t);
-            loadData();
-            refreshCapacityLabel();
-        } catch (Exception ex) {
+        // capacity + duplicate check and insert happen in one locked transaction;
+        // without a database the animal goes to the journal and appears once it is replayed
+        org.example.DbExecutor.run(this, () -> journal.insertOrJournal(t), r -> {
+            if (r == null) {
+                showPending(journal.getPendingCount());
+                JOptionPane.showMessageDialog(this, "The database is not reachable. " + t.getName()
+                        + " was saved offline and will be stored as soon as it is back.");
+                return;
+            }
+            if (!r.isInserted()) {
+                JOptionPane.showMessageDialog(this, r.getMessage(t.getInclosureId()),
+                        "Not saved", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            model.insertRow(r.getAnimal());     // patch the table, no reload
+            searchIndex.add(r.getAnimal());
+            adjustCount(+1);
+            if (model.isFiltered()) applySearch();
+        }, ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Save failed: " + ex.getMessage(),
                     "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
     private void onDelete() {
         int row = table.getSelectedRow();
         if (row < 0) { JOptionPane.showMessageDialog(this, "Please select a row."); return; }
+        if (table.getSelectedRowCount() > 1) { deleteSelected(); return; }
 
         Object v = table.getValueAt(row, 0); // ID column
         if (!(v instanceof Number)) { JOptionPane.showMessageDialog(this, "Invalid ID."); return; }
         int id = ((Number) v).intValue();
+        org.example.Tier selected = model.getAt(row);
 
         int ok = JOptionPane.showConfirmDialog(this,
                 "Delete animal ID " + id + "?", "Confirm",
                 JOptionPane.OK_CANCEL_OPTION);
         if (ok != JOptionPane.OK_OPTION) return;
 
-        try {
-            service.deleteById(id);
-            loadData();
-            refreshCapacityLabel();
-        } catch (Exception ex) {
+        // a delete that has to wait for the database is shown as done right away
+        org.example.DbExecutor.run(this, () -> journal.deleteOrJournal(selected, id), deleted -> {
+            showPending(journal.getPendingCount());
+            model.removeRow(id);
+            searchIndex.remove(id);
+            // 0: already deleted elsewhere, the change feed has counted it
+            adjustCount(deleted == org.example.WriteJournal.JOURNALED ? -1 : -deleted);
+            if (model.isFiltered()) applySearch();
+        }, ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Delete failed: " + ex.getMessage());
+        });
+    }
+
+    /* ---------- Multi-select ---------- */
+
+    /** Selected rows by id; the row is null if its page is not loaded (only the id is known). */
+    private java.util.Map<Integer, org.example.Tier> selection() {
+        java.util.Map<Integer, org.example.Tier> selected = new java.util.LinkedHashMap<>();
+        for (int row : table.getSelectedRows()) {
+            Object v = table.getValueAt(row, 0); // ID column
+            if (v instanceof Number n) selected.put(n.intValue(), model.getAt(row));
         }
+        return selected;
     }
 
-    /* ---------- Capacity check ---------- */
+    /** Deletes all selected animals in one transaction (TierheimService.deleteByIds). */
+    private void deleteSelected() {
+        java.util.Map<Integer, org.example.Tier> selected = selection();
+        if (selected.isEmpty()) return;
+        int ok = JOptionPane.showConfirmDialog(this,
+                "Delete " + selected.size() + " animals?", "Confirm",
+                JOptionPane.OK_CANCEL_OPTION);
+        if (ok != JOptionPane.OK_OPTION) return;
 
-    private void checkCapacityFromDb() {
-        try {
-            // Prefer enclosure from selected row; if none, prompt.
-            Integer encId = getSelectedInclosureIdOrNull();
-            if (encId == null) {
-                String s = JOptionPane.showInputDialog(this, "enclosure id?");
-                if (s == null || s.isBlank()) return;
-                try { encId = Integer.valueOf(s.trim()); }
-                catch (NumberFormatException nfe) {
-                    JOptionPane.showMessageDialog(this, "Invalid enclosure id."); return;
-                }
+        java.util.List<Integer> ids = new java.util.ArrayList<>(selected.keySet());
+        org.example.DbExecutor.run(this, () -> service.deleteByIds(ids), deleted -> {
+            for (int id : ids) {
+                model.removeRow(id);
+                searchIndex.remove(id);
             }
+            table.clearSelection();
+            adjustCount(-deleted);
+            if (model.isFiltered()) applySearch();
+        }, ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Delete failed: " + ex.getMessage());
+        });
+    }
 
-            try (Connection conn = org.example.Database.getConnection()) {
-                // 1) capacity from enclosures
-                int capacity;
-                try (PreparedStatement ps1 =
-                             conn.prepareStatement("SELECT capacity FROM enclosures WHERE id = ?")) {
-                    ps1.setInt(1, encId);
-                    try (ResultSet rs1 = ps1.executeQuery()) {
-                        if (!rs1.next()) {
-                            JOptionPane.showMessageDialog(this, "Enclosure " + encId + " not found!");
-                            return;
-                        }
-                        capacity = rs1.getInt("capacity");
-                    }
-                }
+    /** Moves the selected animals to one enclosure, all or none (capacity checked under a lock). */
+    private void onMove() {
+        java.util.Map<Integer, org.example.Tier> selected = selection();
+        if (selected.isEmpty()) { JOptionPane.showMessageDialog(this, "Please select one or more rows."); return; }
+
+        Integer target = askEnclosure(selected.size());
+        if (target == null) return;
+        int enclosureId = target;
+        java.util.List<Integer> ids = new java.util.ArrayList<>(selected.keySet());
+        org.example.DbExecutor.run(this, () -> service.moveToEnclosure(ids, enclosureId), r -> {
+            if (!r.isMoved()) {
+                JOptionPane.showMessageDialog(this, r.getMessage(enclosureId),
+                        "Not moved", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            for (int id : r.getMovedIds()) {
+                org.example.Tier old = selected.get(id);
+                if (old == null) continue;                  // not loaded: read fresh when its page comes in
+                org.example.Tier moved = copy(old, enclosureId, old.getHealthNote());
+                model.updateRow(moved);
+                searchIndex.add(moved);
+            }
+            if (model.isFiltered()) applySearch();
+        }, ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Move failed: " + ex.getMessage());
+        });
+    }
 
+    /** Target enclosure from a list of the known enclosures, or typed in if none are cached; null = cancelled. */
+    private Integer askEnclosure(int count) {
+        java.util.List<org.example.Gehege> known = org.example.OccupancyCache.get().snapshot();
+        String prompt = "Move " + count + " animal(s) to enclosure:";
+        if (known.isEmpty()) {
+            String s = JOptionPane.showInputDialog(this, prompt + " (ID)");
+            if (s == null || s.isBlank()) return null;
+            try {
+                return Integer.parseInt(s.trim());
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid enclosure ID.");
+                return null;
+            }
+        }
+        JComboBox<org.example.Gehege> combo = new JComboBox<>(known.toArray(new org.example.Gehege[0]));
+        int ok = JOptionPane.showConfirmDialog(this, new Object[]{prompt, combo}, "Move",
+                JOptionPane.OK_CANCEL_OPTION);
+        if (ok != JOptionPane.OK_OPTION || combo.getSelectedItem() == null) return null;
+        return ((org.example.Gehege) combo.getSelectedItem()).getId();
+    }
+
+    /** Sets one health note on all selected animals; an empty text clears it. */
+    private void onHealthNote() {
+        java.util.Map<Integer, org.example.Tier> selected = selection();
+        if (selected.isEmpty()) { JOptionPane.showMessageDialog(this, "Please select one or more rows."); return; }
+
+        org.example.Tier first = selected.values().iterator().next();
+        String input = (String) JOptionPane.showInputDialog(this,
+                "Health note for " + selected.size() + " animal(s):", "Health note",
+                JOptionPane.PLAIN_MESSAGE, null, null, first == null ? "" : first.getHealthNote());
+        if (input == null) return;
+        String note = input.isBlank() ? null : input.trim();
+        java.util.List<Integer> ids = new java.util.ArrayList<>(selected.keySet());
+        org.example.DbExecutor.run(this, () -> service.updateHealthNotes(ids, note), updated -> {
+            for (java.util.Map.Entry<Integer, org.example.Tier> e : selected.entrySet()) {
+                org.example.Tier old = e.getValue();
+                if (old == null) continue;
+                model.updateRow(copy(old, old.getInclosureId(), note));
+            }
+        }, ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Update failed: " + ex.getMessage());
+        });
+    }
+
+    /** The row with a new enclosure and health note (Tier has no setters). */
+    private static org.example.Tier copy(org.example.Tier t, Integer enclosureId, String healthNote) {
+        return new org.example.Tier(t.getId(), t.getName(), t.getSpecies(), t.getAge(), null, enclosureId,
+                t.getSex(), t.getColor(), t.getArrivalDate(), healthNote, t.getBirthDate());
+    }
 
-                String countSql = "SELECT COUNT(*) AS cnt FROM animals WHERE inclosure_id = ?";
-                int current;
-                try (PreparedStatement ps2 = conn.prepareStatement(countSql)) {
-                    ps2.setInt(1, encId);
-                    try (ResultSet rs2 = ps2.executeQuery()) {
-                        rs2.next();
-                        current = rs2.getInt("cnt");
+    /* ---------- CSV import ---------- */
+
+    private void importCsv() {
+        if (cancelJob != null) return;
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV files", "csv"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path csv = chooser.getSelectedFile().toPath();
+
+        long skip = 0;
+        long saved = org.example.AnimalCsvImporter.savedProgress(csv);
+        if (saved > 0) {
+            int answer = JOptionPane.showConfirmDialog(this,
+                    "An earlier import of this file stopped after line " + saved + ".\n" +
+                            "Resume from there? (No = start from the beginning)",
+                    "Resume import", JOptionPane.YES_NO_CANCEL_OPTION);
+            if (answer == JOptionPane.CANCEL_OPTION || answer == JOptionPane.CLOSED_OPTION) return;
+            if (answer == JOptionPane.YES_OPTION) skip = saved;
+        }
+        long skipLines = skip;
+
+        org.example.AnimalCsvImporter imp = new org.example.AnimalCsvImporter(service);
+        cancelJob = imp::cancel;
+        setJobRunning(true, "Starting import…");
+
+        // no owner: the progress bar shows the state, not a wait cursor for the whole import
+        org.example.DbExecutor.run(null, () -> imp.run(csv, skipLines, (line, bytesRead, totalBytes, inserted, failed) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (cancelJob == null) return;
+                    jobProgress.setValue(totalBytes > 0 ? (int) (bytesRead * 1000 / totalBytes) : 0);
+                    if (btnCancelJob.isEnabled()) {
+                        jobProgress.setString("Line " + line + ": " + inserted + " imported, " + failed + " failed");
                     }
-                }
-
-                // 3) result
-                if (current >= capacity) {
-                    JOptionPane.showMessageDialog(this,
-                            "Enclosure " + encId + " is FULL!\n" +
-                                    "Capacity: " + capacity + " | Current: " + current);
-                } else {
-                    int free = capacity - current;
-                    JOptionPane.showMessageDialog(this,
-                            "Enclosure " + encId + " has " + current + " animals.\n" +
-                                    "Capacity: " + capacity + "\nFree spots: " + free);
-                }
+                })), result -> {
+            cancelJob = null;
+            setJobRunning(false, "");
+            loadData();
+            refreshCapacityLabel();
+            showImportResult(result);
+        }, ex -> {
+            cancelJob = null;
+            setJobRunning(false, "");
+            loadData();
+            refreshCapacityLabel();
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Import failed: " + ex.getMessage()
+                    + "\nChunks already imported are kept; the import can be resumed.");
+        });
+    }
+
+    private void setJobRunning(boolean running, String text) {
+        btnImport.setEnabled(!running);
+        btnExport.setEnabled(!running);
+        btnCancelJob.setEnabled(running);
+        btnCancelJob.setVisible(running);
+        jobProgress.setValue(0);
+        jobProgress.setString(text);
+        jobProgress.setVisible(running);
+        revalidate();
+    }
+
+    private void showImportResult(org.example.AnimalCsvImporter.Result result) {
+        String summary = (result.isCancelled() ? "Import cancelled after line " + result.getLastLine() + ".\n" : "Import finished.\n")
+                + "Imported: " + result.getInserted() + "\nFailed: " + result.getFailed();
+        if (result.getErrors().isEmpty()) {
+            JOptionPane.showMessageDialog(this, summary);
+            return;
+        }
+
+        Object[][] rows = new Object[result.getErrors().size()][];
+        for (int i = 0; i < rows.length; i++) {
+            org.example.AnimalCsvImporter.RowError e = result.getErrors().get(i);
+            rows[i] = new Object[]{e.getLine(), e.getMessage()};
+        }
+        JTable errors = new JTable(rows, new Object[]{"Line", "Error"});
+        errors.setEnabled(false);
+        errors.getColumnModel().getColumn(0).setMaxWidth(80);
+        JScrollPane scroll = new JScrollPane(errors);
+        scroll.setPreferredSize(new Dimension(520, 260));
+
+        JPanel content = new JPanel(new BorderLayout(0, 8));
+        content.add(new JLabel("<html>" + summary.replace("\n", "<br>") + "</html>"), BorderLayout.NORTH);
+        content.add(scroll, BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(this, content, "Import result", JOptionPane.WARNING_MESSAGE);
+    }
+
+    /* ---------- Export ---------- */
+
+    private void exportAnimals() {
+        if (cancelJob != null) return;
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export animals");
+        chooser.setSelectedFile(new java.io.File("animals-" + java.time.LocalDate.now() + ".csv"));
+        chooser.addChoosableFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV (.csv, .csv.gz)", "csv", "gz"));
+        chooser.addChoosableFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("JSON Lines (.jsonl, .jsonl.gz)", "jsonl", "gz"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path target = chooser.getSelectedFile().toPath();
+        String name = target.getFileName().toString();
+        if (!name.contains(".")) target = target.resolveSibling(name + ".csv");
+        if (java.nio.file.Files.exists(target)) {
+            int ok = JOptionPane.showConfirmDialog(this, target.getFileName() + " exists. Overwrite?",
+                    "Export", JOptionPane.OK_CANCEL_OPTION);
+            if (ok != JOptionPane.OK_OPTION) return;
+        }
+        Path file = target;
+        org.example.AnimalExporter.Format format = org.example.AnimalExporter.formatOf(file);
+        boolean gzip = org.example.AnimalExporter.isGzip(file);
+
+        org.example.AnimalExporter exp = new org.example.AnimalExporter(service);
+        cancelJob = exp::cancel;
+        setJobRunning(true, "Starting export…");
+
+        org.example.DbExecutor.run(null, () -> exp.run(file, format, gzip, (written, total) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (cancelJob == null) return;
+                    jobProgress.setValue(total > 0 ? (int) Math.min(1000, written * 1000 / total) : 0);
+                    if (btnCancelJob.isEnabled()) jobProgress.setString(written + " / " + total + " exported");
+                })), written -> {
+            cancelJob = null;
+            setJobRunning(false, "");
+            if (written < 0) JOptionPane.showMessageDialog(this, "Export cancelled.");
+            else JOptionPane.showMessageDialog(this, "Exported " + written + " animals to\n" + file);
+        }, ex -> {
+            cancelJob = null;
+            setJobRunning(false, "");
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Export failed: " + ex.getMessage());
+        });
+    }
+
+    /* ---------- Capacity check ---------- */
+
+    private void checkCapacityFromDb() {
+        // Prefer enclosure from selected row; if none, prompt.
+        Integer selected = getSelectedInclosureIdOrNull();
+        if (selected == null) {
+            String s = JOptionPane.showInputDialog(this, "enclosure id?");
+            if (s == null || s.isBlank()) return;
+            try { selected = Integer.valueOf(s.trim()); }
+            catch (NumberFormatException nfe) {
+                JOptionPane.showMessageDialog(this, "Invalid enclosure id."); return;
             }
-        } catch (Exception ex) {
+        }
+        int encId = selected;
+
+        // answered from memory when the enclosure is cached, else one query off the EDT
+        org.example.Gehege cached = org.example.OccupancyCache.get().find(encId);
+        if (cached != null) {
+            showCapacity(cached);
+            return;
+        }
+        org.example.DbExecutor.run(this, "checkCapacity", () -> service.findEnclosure(encId), g -> {
+            if (g == null) {
+                JOptionPane.showMessageDialog(this, "Enclosure " + encId + " not found!");
+                return;
+            }
+            org.example.OccupancyCache.get().put(g);
+            showCapacity(g);
+        }, ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Check failed: " + ex.getMessage());
+        });
+    }
+
+    private void showCapacity(org.example.Gehege g) {
+        int encId = g.getId();
+        int capacity = g.getCapacity();
+        int current = g.getOccupancy();
+
+        if (current >= capacity) {
+            JOptionPane.showMessageDialog(this,
+                    "Enclosure " + encId + " is FULL!\n" +
+                            "Capacity: " + capacity + " | Current: " + current);
+        } else {
+            int free = capacity - current;
+            JOptionPane.showMessageDialog(this,
+                    "Enclosure " + encId + " has " + current + " animals.\n" +
+                            "Capacity: " + capacity + "\nFree spots: " + free);
         }
     }
 
@@ -4,9 +4,11 @@ import javax.swing.*;
 
 public class App {
     public static void main(String[] args) {
+        org.example.StartupTimer.markOnce("main");
         SwingUtilities.invokeLater(() -> {
             org.example.MainFrame frame = new org.example.MainFrame();
             frame.setVisible(true);
+            org.example.StartupTimer.markOnce("frame shown");
         });
     }
 }
\ No newline at end of file
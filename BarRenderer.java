@@ -0,0 +1,37 @@
+package org.example;
+
+import javax.swing.*;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+
+/**
+ * Table cell renderer that draws an Integer percentage (0..100) as a horizontal bar.
+ * - Values at or above warnAt are drawn in red (e.g. a full enclosure).
+ */
+public class BarRenderer extends JProgressBar implements TableCellRenderer {
+
+    private final int warnAt;
+    private final Color normal;
+
+    public BarRenderer() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public BarRenderer(int warnAt) {
+        super(0, 100);
+        this.warnAt = warnAt;
+        this.normal = getForeground();
+        setStringPainted(true);
+        setBorderPainted(false);
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+        int v = (value instanceof Integer i) ? i : 0;
+        setValue(Math.min(100, v));
+        setString(v + " %");
+        setForeground(v >= warnAt ? new Color(0xC62828) : normal);
+        return this;
+    }
+}
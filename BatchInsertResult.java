@@ -0,0 +1,33 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Result of TierheimService.insertAll: generated id per input row, or a reason why it was skipped. */
+public class BatchInsertResult {
+
+    private final int[] ids;                                  // 0 = not inserted
+    private final Map<Integer, String> failures = new TreeMap<>();
+
+    BatchInsertResult(int size) {
+        this.ids = new int[size];
+    }
+
+    void inserted(int index, int id) { ids[index] = id; }
+    void fail(int index, String reason) { failures.put(index, reason); }
+
+    /** Generated id of input row {@code index}, or 0 if it was not inserted. */
+    public int getId(int index) { return ids[index]; }
+
+    public int size() { return ids.length; }
+    public int getInsertedCount() { return ids.length - failures.size(); }
+
+    /** Input index -> reason, in input order. */
+    public Map<Integer, String> getFailures() { return Collections.unmodifiableMap(failures); }
+
+    @Override
+    public String toString() {
+        return String.format("Inserted: %d/%d | Failed: %d", getInsertedCount(), ids.length, failures.size());
+    }
+}
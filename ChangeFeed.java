@@ -0,0 +1,220 @@
+package org.example;
+
+import javax.swing.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delta sync between several desks on one database.
+ * Polls animal_changes after the high-water mark, reads only the changed rows and hands them to
+ * the listener on the EDT. Changes made by this instance are skipped, they are already applied locally.
+ * - AUTO_INCREMENT seqs become visible out of order: a transaction holding a lower seq can commit
+ *   after a higher one. The mark therefore only moves past seqs that were seen; a hole stops it
+ *   until the hole fills, or until the seq above it has been known for tierheim.sync.gapGraceMs
+ *   (default 60 s, longer than any transaction) - then the hole was a rollback and is skipped.
+ * - Seqs above the mark that were already handled are remembered and not delivered twice.
+ */
+public final class ChangeFeed {
+
+    private static final long POLL_MS = Long.getLong("tierheim.sync.pollMs", 5_000);
+    private static final int BATCH = 500;
+    private static final int KEEP_DAYS = 7;
+    private static final long PRUNE_EVERY_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long GAP_GRACE_MS = Long.getLong("tierheim.sync.gapGraceMs", 60_000);
+    private static final int START_WINDOW = 1_000;     // seqs below the start checked for holes
+
+    /** Called on the EDT. */
+    public interface Listener {
+        void animalsChanged(Delta delta);
+    }
+
+    /** Net effect of a run of changes, one entry per animal. */
+    public static final class Delta {
+        private final List<org.example.Tier> inserted;
+        private final List<org.example.Tier> updated;
+        private final List<Integer> deletedIds;
+
+        Delta(List<org.example.Tier> inserted, List<org.example.Tier> updated, List<Integer> deletedIds) {
+            this.inserted = inserted;
+            this.updated = updated;
+            this.deletedIds = deletedIds;
+        }
+
+        public List<org.example.Tier> getInserted() { return inserted; }
+        public List<org.example.Tier> getUpdated() { return updated; }
+        public List<Integer> getDeletedIds() { return deletedIds; }
+        public boolean isEmpty() { return inserted.isEmpty() && updated.isEmpty() && deletedIds.isEmpty(); }
+    }
+
+    private final org.example.TierheimService service;
+    private final Listener listener;
+    /**
+     * Where the feed starts: the newest seq, plus which of the seqs just below it exist.
+     * Read before the data it belongs to (the missing ones may still commit and must not be lost).
+     */
+    public static final class Mark {
+        private final long seq;
+        private final List<Long> present;
+
+        Mark(long seq, List<Long> present) {
+            this.seq = seq;
+            this.present = present;
+        }
+
+        public long getSeq() { return seq; }
+    }
+
+    /** Reads the current start position. Blocking (two indexed queries). */
+    public static Mark readMark(org.example.TierheimService service) throws Exception {
+        long seq = service.currentChangeSeq();
+        List<Long> present = new ArrayList<>();
+        for (long s : service.changeSeqsSince(Math.max(0, seq - START_WINDOW))) {
+            if (s <= seq) present.add(s);
+        }
+        return new Mark(seq, present);
+    }
+
+    private final ScheduledExecutorService timer;
+    private long highWaterMark = -1;        // every seq up to here is handled; -1 = not started; guarded by this
+    // handled seqs above the mark -> when they were first seen (ms); guarded by this
+    private final TreeMap<Long, Long> seen = new TreeMap<>();
+    private long lastPrune;
+
+    public ChangeFeed(org.example.TierheimService service, Listener listener) {
+        this.service = service;
+        this.listener = listener;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "change-feed");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::pollQuietly, POLL_MS, POLL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts at the newest change. Call right before a full load,
+     * so everything after that load arrives through the feed. Blocking (DB call).
+     */
+    public long resetToCurrent() throws Exception {
+        Mark mark = readMark(service);
+        resetTo(mark);
+        return mark.seq;
+    }
+
+    /**
+     * Like resetToCurrent, with a mark read earlier together with the data it belongs to.
+     * Seqs below it that did not exist yet are holes: delivered if they still commit.
+     */
+    public synchronized void resetTo(Mark mark) {
+        seen.clear();
+        long now = System.currentTimeMillis();
+        for (long s : mark.present) seen.put(s, now);
+        highWaterMark = Math.max(0, mark.seq - START_WINDOW);
+        advance(now);
+    }
+
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    /* ---------- polling ---------- */
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (Exception ex) {
+            // database not reachable: keep the mark and try again on the next tick
+            System.err.println("Change feed poll failed: " + ex.getMessage());
+        }
+    }
+
+    private synchronized void poll() throws Exception {
+        if (highWaterMark < 0) return;
+        maybePrune();
+
+        long after = highWaterMark;
+        List<org.example.AnimalChange> changes;
+        do {
+            changes = service.changesSince(after, BATCH);
+            if (changes.isEmpty()) break;
+            after = changes.get(changes.size() - 1).getSeq();
+
+            long now = System.currentTimeMillis();
+            List<org.example.AnimalChange> fresh = new ArrayList<>();
+            for (org.example.AnimalChange ch : changes) {
+                if (ch.getSeq() > highWaterMark && seen.putIfAbsent(ch.getSeq(), now) == null) fresh.add(ch);
+            }
+            if (fresh.isEmpty()) continue;
+            Delta delta = toDelta(fresh);
+            if (!delta.isEmpty()) {
+                org.example.OccupancyCache.get().refreshAsync();
+                SwingUtilities.invokeLater(() -> listener.animalsChanged(delta));
+            }
+        } while (changes.size() == BATCH);
+        advance(System.currentTimeMillis());
+    }
+
+    /**
+     * Moves the mark over seen seqs. A hole stops it, unless the seq above the hole has been
+     * known for GAP_GRACE_MS: then nothing is going to commit there any more (rolled back).
+     */
+    private void advance(long now) {
+        while (!seen.isEmpty()) {
+            Map.Entry<Long, Long> next = seen.firstEntry();
+            if (next.getKey() == highWaterMark + 1 || now - next.getValue() >= GAP_GRACE_MS) {
+                highWaterMark = next.getKey();
+                seen.pollFirstEntry();
+            } else {
+                break;
+            }
+        }
+    }
+
+    /** Collapses the changes per animal and loads the current rows for inserts/updates in one query. */
+    private Delta toDelta(List<org.example.AnimalChange> changes) throws Exception {
+        Map<Integer, Character> firstOp = new LinkedHashMap<>();
+        Map<Integer, Character> lastOp = new HashMap<>();
+        for (org.example.AnimalChange ch : changes) {
+            if (ch.isOwn()) continue;
+            firstOp.putIfAbsent(ch.getAnimalId(), ch.getOp());
+            lastOp.put(ch.getAnimalId(), ch.getOp());
+        }
+
+        Set<Integer> toLoad = new HashSet<>();
+        List<Integer> deleted = new ArrayList<>();
+        for (Map.Entry<Integer, Character> e : firstOp.entrySet()) {
+            int id = e.getKey();
+            boolean created = e.getValue() == org.example.AnimalChange.INSERT;
+            boolean gone = lastOp.get(id) == org.example.AnimalChange.DELETE;
+            if (gone && !created) deleted.add(id);
+            else if (!gone) toLoad.add(id);
+            // created and deleted within this run: nothing to show
+        }
+
+        List<org.example.Tier> inserted = new ArrayList<>();
+        List<org.example.Tier> updated = new ArrayList<>();
+        if (!toLoad.isEmpty()) {
+            for (org.example.Tier t : service.findByIds(toLoad)) {
+                if (firstOp.get(t.getId()) == org.example.AnimalChange.INSERT) {
+                    inserted.add(t);
+                } else {
+                    updated.add(t);
+                }
+            }
+        }
+        return new Delta(inserted, updated, deleted);
+    }
+
+    private void maybePrune() {
+        long now = System.currentTimeMillis();
+        if (now - lastPrune < PRUNE_EVERY_MS) return;
+        lastPrune = now;
+        try {
+            service.pruneChanges(KEEP_DAYS);
+        } catch (Exception ex) {
+            System.err.println("Change log prune failed: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package org.example;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small JDBC connection pool used behind {@link Database#getConnection()}.
+ * - min/max size, idle connections are evicted after idleTimeout (down to min).
+ * - Connections are validated on borrow (skipped if used a moment ago).
+ * - close() on a borrowed connection gives it back to the pool.
+ * - Statements are instrumented for QueryMetrics (off with -Dtierheim.metrics=false).
+ */
+public final class ConnectionPool {
+
+    /** Connections returned less than this ago are handed out without isValid(). */
+    private static final long VALIDATION_BYPASS_MS = 500;
+    private static final int VALIDATION_TIMEOUT_SEC = 2;
+    private static final long EVICTION_INTERVAL_MS = 30_000;
+
+    private final String url;
+    private final String user;
+    private final String pass;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final long maxWaitMs;
+
+    // guarded by "this"
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();   // LIFO: warmest connection first
+    private int total;          // physical connections (idle + active + being opened)
+    private int waiting;
+    private boolean closed;
+
+    // statistics, guarded by "this"
+    private long borrowCount;
+    private long waitNanosTotal;
+    private long waitNanosMax;
+    private long timeouts;
+    private long created;
+    private long evicted;
+    private long validationFailures;
+
+    private ScheduledExecutorService evictor;
+
+    public ConnectionPool(String url, String user, String pass,
+                          int minSize, int maxSize, long idleTimeoutMs, long maxWaitMs) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be >= 1");
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.minSize = Math.max(0, Math.min(minSize, maxSize));
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /* ===================== BORROW ===================== */
+
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        startEvictor();
+        while (true) {
+            IdleConnection slot = takeIdleOrReserve(start);
+            Connection raw;
+            if (slot == null) {
+                // a free slot was reserved -> open a new physical connection (outside the lock)
+                try {
+                    raw = open();
+                } catch (SQLException e) {
+                    discard(null);
+                    throw e;
+                }
+            } else {
+                raw = slot.conn;
+                if (!isAlive(slot)) {
+                    synchronized (this) { validationFailures++; }
+                    discard(raw);
+                    continue;
+                }
+            }
+            recordBorrow(System.nanoTime() - start);
+            return wrap(raw);
+        }
+    }
+
+    /** Returns an idle connection, or null if the caller may open a new one. Waits up to maxWait. */
+    private synchronized IdleConnection takeIdleOrReserve(long startNanos) throws SQLException {
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        while (true) {
+            if (closed) throw new SQLException("Connection pool is closed");
+            IdleConnection c = idle.pollFirst();
+            if (c != null) return c;
+            if (total < maxSize) {
+                total++;
+                return null;
+            }
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                timeouts++;
+                throw new SQLTimeoutException("No database connection available after " + maxWaitMs + " ms"
+                        + " (pool max " + maxSize + ")");
+            }
+            waiting++;
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", ie);
+            } finally {
+                waiting--;
+            }
+        }
+    }
+
+    private boolean isAlive(IdleConnection c) {
+        if (System.currentTimeMillis() - c.since < VALIDATION_BYPASS_MS) return true;
+        try {
+            return c.conn.isValid(VALIDATION_TIMEOUT_SEC);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection open() throws SQLException {
+        Connection c = DriverManager.getConnection(url, user, pass);
+        synchronized (this) { created++; }
+        return c;
+    }
+
+    private synchronized void recordBorrow(long waitNanos) {
+        borrowCount++;
+        waitNanosTotal += waitNanos;
+        if (waitNanos > waitNanosMax) waitNanosMax = waitNanos;
+        if (org.example.QueryMetrics.ENABLED) org.example.QueryMetrics.get().recordAcquire(waitNanos);
+    }
+
+    /* ===================== RETURN ===================== */
+
+    private void release(Connection raw, boolean broken) {
+        if (!broken) {
+            try {
+                // hand out connections in a clean state
+                if (!raw.getAutoCommit()) {
+                    raw.rollback();
+                    raw.setAutoCommit(true);
+                }
+                if (raw.isReadOnly()) raw.setReadOnly(false);
+                raw.clearWarnings();
+            } catch (SQLException e) {
+                broken = true;
+            }
+        }
+        synchronized (this) {
+            if (!broken && !closed) {
+                idle.addFirst(new IdleConnection(raw, System.currentTimeMillis()));
+                notify();
+                return;
+            }
+        }
+        discard(raw);
+    }
+
+    /** Frees the slot of a connection that is not coming back (raw may be null). */
+    private void discard(Connection raw) {
+        closeQuietly(raw);
+        synchronized (this) {
+            total--;
+            notify();
+        }
+    }
+
+    /* ===================== EVICTION ===================== */
+
+    private synchronized void startEvictor() {
+        if (evictor != null || closed) return;
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        evictor.scheduleWithFixedDelay(this::maintain, 0, EVICTION_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Closes connections idle longer than idleTimeout and tops the pool up to minSize. */
+    private void maintain() {
+        Deque<Connection> toClose = new ArrayDeque<>();
+        int missing;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            // oldest connections sit at the end of the deque
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext() && total - toClose.size() > minSize) {
+                IdleConnection c = it.next();
+                if (now - c.since < idleTimeoutMs) break;
+                it.remove();
+                toClose.add(c.conn);
+            }
+            total -= toClose.size();
+            evicted += toClose.size();
+            missing = closed ? 0 : Math.max(0, minSize - total);
+            total += missing;
+        }
+        toClose.forEach(ConnectionPool::closeQuietly);
+
+        for (int i = 0; i < missing; i++) {
+            try {
+                Connection c = open();
+                synchronized (this) {
+                    idle.addLast(new IdleConnection(c, System.currentTimeMillis()));
+                    notify();
+                }
+            } catch (SQLException e) {
+                // database not reachable right now; retry on the next run
+                for (int j = i; j < missing; j++) discard(null);
+                return;
+            }
+        }
+    }
+
+    /* ===================== LIFECYCLE ===================== */
+
+    public void close() {
+        Deque<IdleConnection> toClose;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            toClose = new ArrayDeque<>(idle);
+            total -= idle.size();
+            idle.clear();
+            if (evictor != null) evictor.shutdownNow();
+            notifyAll();
+        }
+        toClose.forEach(c -> closeQuietly(c.conn));
+    }
+
+    public synchronized Stats stats() {
+        int idleCount = idle.size();
+        return new Stats(total - idleCount, idleCount, waiting, maxSize, borrowCount,
+                waitNanosTotal, waitNanosMax, timeouts, created, evicted, validationFailures);
+    }
+
+    private static void closeQuietly(Connection c) {
+        if (c == null) return;
+        try { c.close(); } catch (SQLException ignored) { }
+    }
+
+    /* ===================== PROXY ===================== */
+
+    private Connection wrap(Connection raw) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledHandler(raw));
+    }
+
+    private final class PooledHandler implements InvocationHandler {
+        private final Connection raw;
+        private boolean returned;
+        private boolean broken;
+
+        PooledHandler(Connection raw) { this.raw = raw; }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            switch (m.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        release(raw, broken);
+                    }
+                    return null;
+                }
+                case "isClosed" -> { return returned || raw.isClosed(); }
+                case "equals" -> { return proxy == args[0]; }
+                case "hashCode" -> { return System.identityHashCode(proxy); }
+                case "toString" -> { return "Pooled[" + raw + "]"; }
+                default -> { }
+            }
+            if (returned) throw new SQLException("Connection has already been returned to the pool");
+            try {
+                Object result = m.invoke(raw, args);
+                if (result instanceof java.sql.Statement st && org.example.QueryMetrics.ENABLED) {
+                    // prepareStatement / prepareCall carry the SQL as first argument, createStatement does not
+                    String sql = (args != null && args.length > 0 && args[0] instanceof String s) ? s : null;
+                    return org.example.InstrumentedJdbc.wrap(st, m.getReturnType(), sql);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQLState class 08 = connection exception -> do not reuse this connection
+                if (cause instanceof SQLException se && se.getSQLState() != null && se.getSQLState().startsWith("08")) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+
+    private static final class IdleConnection {
+        final Connection conn;
+        final long since;
+
+        IdleConnection(Connection conn, long since) {
+            this.conn = conn;
+            this.since = since;
+        }
+    }
+
+    /* ===================== STATS ===================== */
+
+    /** Point-in-time view of the pool. */
+    public static final class Stats {
+        private final int active;
+        private final int idle;
+        private final int waiting;
+        private final int maxSize;
+        private final long borrowCount;
+        private final long waitNanosTotal;
+        private final long waitNanosMax;
+        private final long timeouts;
+        private final long created;
+        private final long evicted;
+        private final long validationFailures;
+
+        Stats(int active, int idle, int waiting, int maxSize, long borrowCount, long waitNanosTotal,
+              long waitNanosMax, long timeouts, long created, long evicted, long validationFailures) {
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+            this.maxSize = maxSize;
+            this.borrowCount = borrowCount;
+            this.waitNanosTotal = waitNanosTotal;
+            this.waitNanosMax = waitNanosMax;
+            this.timeouts = timeouts;
+            this.created = created;
+            this.evicted = evicted;
+            this.validationFailures = validationFailures;
+        }
+
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiting() { return waiting; }
+        public int getMaxSize() { return maxSize; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getTimeouts() { return timeouts; }
+        public long getCreated() { return created; }
+        public long getEvicted() { return evicted; }
+        public long getValidationFailures() { return validationFailures; }
+
+        public double getAvgWaitMillis() {
+            return borrowCount == 0 ? 0 : waitNanosTotal / 1e6 / borrowCount;
+        }
+
+        public double getMaxWaitMillis() { return waitNanosMax / 1e6; }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d idle=%d waiting=%d max=%d | borrows=%d avgWait=%.2fms maxWait=%.2fms"
+                            + " timeouts=%d created=%d evicted=%d invalid=%d",
+                    active, idle, waiting, maxSize, borrowCount, getAvgWaitMillis(), getMaxWaitMillis(),
+                    timeouts, created, evicted, validationFailures);
+        }
+    }
+}
@@ -1,18 +1,87 @@
 package org.example;
 
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Locale;
 
+/**
+ * Connection source for all DAOs.
+ * Storage backend is chosen with -Dtierheim.storage:
+ * - mysql (default): the MySQL server below.
+ * - embedded: an in-process H2 database in MySQL mode under tierheim.embedded.dir
+ *   (default ~/.tierheim); the tables are created on first start (see EmbeddedSchema).
+ * -Dtierheim.db.url / .user / .password override both (e.g. an in-memory database for benchmarks).
+ */
 public final class Database {
-    private static final String URL =
-            "jdbc:mysql://localhost:3306/tierheim?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
-    private static final String USER = "root";          // change if your MySQL user is different
-    private static final String PASS = "6September1993";  // put your MySQL password here
+    private static final String MYSQL_URL =
+            "jdbc:mysql://localhost:3306/tierheim?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC&rewriteBatchedStatements=true";
+    private static final String MYSQL_USER = "root";          // change if your MySQL user is different
+    private static final String MYSQL_PASS = "6September1993";  // put your MySQL password here
+
+    private static final boolean EMBEDDED_STORAGE =
+            "embedded".equals(System.getProperty("tierheim.storage", "mysql").trim().toLowerCase(Locale.ROOT));
+    private static final Path EMBEDDED_DIR =
+            Path.of(System.getProperty("tierheim.embedded.dir", System.getProperty("user.home") + "/.tierheim"));
+
+    private static final String URL = System.getProperty("tierheim.db.url",
+            EMBEDDED_STORAGE ? embeddedUrl() : MYSQL_URL);
+    private static final String USER = System.getProperty("tierheim.db.user", EMBEDDED_STORAGE ? "sa" : MYSQL_USER);
+    private static final String PASS = System.getProperty("tierheim.db.password", EMBEDDED_STORAGE ? "" : MYSQL_PASS);
+
+    // Pool settings, can be overridden with -Dtierheim.pool.min=... etc.
+    private static final int POOL_MIN = Integer.getInteger("tierheim.pool.min", 2);
+    private static final int POOL_MAX = Integer.getInteger("tierheim.pool.max", 10);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("tierheim.pool.idleTimeoutMs", 5 * 60_000L);
+    private static final long POOL_MAX_WAIT_MS = Long.getLong("tierheim.pool.maxWaitMs", 10_000L);
 
     Database() {}
 
+    private static String embeddedUrl() {
+        // MySQL mode + lower-case names, so the DAOs' SQL runs unchanged;
+        // the pool's shutdown hook closes the database, not H2's own hook
+        return "jdbc:h2:file:" + EMBEDDED_DIR.resolve("tierheim").toAbsolutePath()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_ON_EXIT=FALSE";
+    }
+
+    /** Created on first use, so nothing connects while classes are loaded. */
+    private static final class Holder {
+        static final ConnectionPool POOL = createPool();
+
+        private static ConnectionPool createPool() {
+            ConnectionPool pool = new ConnectionPool(URL, USER, PASS,
+                    POOL_MIN, POOL_MAX, POOL_IDLE_TIMEOUT_MS, POOL_MAX_WAIT_MS);
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "db-pool-shutdown"));
+            if (EMBEDDED_STORAGE && !System.getProperties().containsKey("tierheim.db.url")) {
+                try (Connection c = pool.getConnection()) {
+                    org.example.EmbeddedSchema.create(c);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Could not create the embedded database in " + EMBEDDED_DIR, e);
+                }
+            }
+            return pool;
+        }
+    }
+
+    /** Borrows a pooled connection; close() hands it back to the pool. */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASS);
+        return Holder.POOL.getConnection();
+    }
+
+    public static ConnectionPool.Stats poolStats() {
+        return Holder.POOL.stats();
+    }
+
+    /** True when the app talks to a MySQL server (not the embedded or an in-memory H2 database). */
+    public static boolean isMySql() {
+        return URL.startsWith("jdbc:mysql:");
+    }
+
+    /**
+     * Fetch size for large forward-only reads that must not be buffered in memory.
+     * Connector/J only streams with Integer.MIN_VALUE; H2 reads lazily in batches of the given size.
+     */
+    public static int streamingFetchSize() {
+        return isMySql() ? Integer.MIN_VALUE : 1000;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package org.example;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Shared executor for database work started from the UI.
+ * - The query runs on a background thread, never on the EDT.
+ * - onSuccess / onError are called on the EDT.
+ * - Calls with the same (owner, key) coalesce: a newer call supersedes an older one,
+ *   the older one is skipped (or its result dropped if it already started).
+ * - While work for an owner is in flight, the owner shows a wait cursor.
+ */
+public final class DbExecutor {
+
+    private static final int THREADS = Integer.getInteger("tierheim.db.threads", 4);
+    private static final String BUSY_KEY = "tierheim.db.busy";
+
+    private static final AtomicInteger THREAD_NO = new AtomicInteger();
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread t = new Thread(r, "db-worker-" + THREAD_NO.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Latest request per (owner, key); a new request cancels the one it replaces. */
+    private static final Map<Object, Request> LATEST = new ConcurrentHashMap<>();
+
+    private DbExecutor() {}
+
+    /** Runs a query without coalescing. */
+    public static <T> Future<?> run(JComponent owner, Callable<T> query,
+                                    Consumer<? super T> onSuccess, Consumer<Exception> onError) {
+        return run(owner, null, query, onSuccess, onError);
+    }
+
+    /**
+     * Runs a query in the background. If key is not null, any earlier request with the same
+     * owner and key is cancelled and its result is never delivered.
+     */
+    public static <T> Future<?> run(JComponent owner, String key, Callable<T> query,
+                                    Consumer<? super T> onSuccess, Consumer<Exception> onError) {
+        Object slot = (key == null) ? null : new Slot(owner, key);
+        Request req = new Request(slot);
+        if (slot != null) {
+            Request previous = LATEST.put(slot, req);
+            if (previous != null) previous.cancel();
+        }
+
+        setBusy(owner, true);
+        return POOL.submit(() -> {
+            if (req.isStale()) { finish(owner, req); return; }
+            T result;
+            try {
+                result = query.call();
+            } catch (Exception ex) {
+                SwingUtilities.invokeLater(() -> {
+                    finish(owner, req);
+                    if (!req.isStale() && onError != null) onError.accept(ex);
+                });
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                finish(owner, req);
+                if (!req.isStale() && onSuccess != null) onSuccess.accept(result);
+            });
+        });
+    }
+
+    /** Convenience for writes/void calls. */
+    public static Future<?> execute(JComponent owner, Work work, Runnable onSuccess, Consumer<Exception> onError) {
+        return run(owner, () -> { work.run(); return null; },
+                ignored -> { if (onSuccess != null) onSuccess.run(); }, onError);
+    }
+
+    /** Work without a UI owner (caches, prefetch). Nothing is called back on the EDT. */
+    public static <T> Future<T> submit(Callable<T> task) {
+        return POOL.submit(task);
+    }
+
+    @FunctionalInterface
+    public interface Work {
+        void run() throws Exception;
+    }
+
+    /* ---------- busy state ---------- */
+
+    private static void finish(JComponent owner, Request req) {
+        if (req.slot != null) LATEST.remove(req.slot, req);
+        if (SwingUtilities.isEventDispatchThread()) setBusy(owner, false);
+        else SwingUtilities.invokeLater(() -> setBusy(owner, false));
+    }
+
+    /** Reference counted, so overlapping requests keep the cursor until the last one is done. */
+    private static void setBusy(JComponent owner, boolean busy) {
+        if (owner == null) return;
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> setBusy(owner, busy));
+            return;
+        }
+        Object v = owner.getClientProperty(BUSY_KEY);
+        int count = (v instanceof Integer) ? (Integer) v : 0;
+        count = Math.max(0, count + (busy ? 1 : -1));
+        owner.putClientProperty(BUSY_KEY, count);
+        owner.setCursor(count > 0 ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+    }
+
+    /* ---------- bookkeeping ---------- */
+
+    private static final class Request {
+        final Object slot;
+        volatile boolean cancelled;
+
+        Request(Object slot) { this.slot = slot; }
+
+        /** A queued request is skipped; a JDBC call already in progress finishes and its result is dropped. */
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isStale() {
+            return cancelled;
+        }
+    }
+
+    private static final class Slot {
+        final JComponent owner;
+        final String key;
+
+        Slot(JComponent owner, String key) {
+            this.owner = owner;
+            this.key = key;
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof Slot s && s.owner == owner && s.key.equals(key);
+        }
+
+        @Override public int hashCode() { return System.identityHashCode(owner) * 31 + key.hashCode(); }
+    }
+}
@@ -0,0 +1,219 @@
+package org.example;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Diagnostics tab.
+ * - Queries: latency per DAO operation, connection pool, slow-query log (QueryMetrics).
+ * - UI responsiveness: EDT latency, stalls and their worst offenders (EdtWatchdog).
+ * - Startup: phases since JVM start, e.g. first paint and interactive (StartupTimer).
+ * Refreshed every 2 s while the tab is visible.
+ */
+public class DiagnosticsPanel extends JPanel {
+
+    private static final int REFRESH_MS = 2000;
+
+    private final JLabel poolLabel = new JLabel(" ");
+    private final JLabel acquireLabel = new JLabel(" ");
+    private final JLabel edtLabel = new JLabel(" ");
+    private final JLabel stallLabel = new JLabel(" ");
+    private final JTextArea stackArea = new JTextArea();
+    private List<org.example.EdtWatchdog.Stall> shownStalls = List.of();
+    private final JButton btnReset = new JButton("Reset");
+
+    private final DefaultTableModel opsModel = readOnlyModel(
+            "Operation", "Calls", "Errors", "Avg ms", "p50 ms", "p95 ms", "p99 ms", "Max ms", "Avg rows");
+    private final DefaultTableModel slowModel = readOnlyModel(
+            "Time", "Operation", "ms", "Rows", "SQL", "Binds");
+    private final DefaultTableModel offendersModel = readOnlyModel(
+            "Where", "Stalls", "Total ms", "Max ms");
+    private final DefaultTableModel stallsModel = readOnlyModel(
+            "Time", "ms", "Where", "Samples");
+    private final DefaultTableModel startupModel = readOnlyModel(
+            "Phase", "At ms", "Took ms", "Thread");
+
+    private final Timer timer = new Timer(REFRESH_MS, e -> refresh());
+
+    public DiagnosticsPanel() {
+        setLayout(new BorderLayout(8, 8));
+        setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+
+        JPanel labels = new JPanel(new GridLayout(2, 1));
+        labels.add(poolLabel);
+        labels.add(acquireLabel);
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(labels, BorderLayout.CENTER);
+        top.add(btnReset, BorderLayout.EAST);
+        add(top, BorderLayout.NORTH);
+
+        JTable ops = new JTable(opsModel);
+        ops.setAutoCreateRowSorter(true);
+        ops.getColumnModel().getColumn(0).setPreferredWidth(240);
+        JTable slow = new JTable(slowModel);
+        slow.getColumnModel().getColumn(4).setPreferredWidth(400);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                titled(new JScrollPane(ops), "Queries per operation"),
+                titled(new JScrollPane(slow), "Slow queries (>= "
+                        + org.example.QueryMetrics.get().getSlowQueryThresholdMillis() + " ms, newest first)"));
+        split.setResizeWeight(0.6);
+
+        JTabbedPane views = new JTabbedPane();
+        views.addTab("Queries", split);
+        views.addTab("UI responsiveness", buildUiView());
+        JTable startup = new JTable(startupModel);
+        startup.getColumnModel().getColumn(0).setPreferredWidth(300);
+        views.addTab("Startup", new JScrollPane(startup));
+        add(views, BorderLayout.CENTER);
+
+        btnReset.addActionListener(e -> {
+            org.example.QueryMetrics.get().reset();
+            org.example.EdtWatchdog.get().reset();
+            refresh();
+        });
+
+        // only refresh while the tab is on screen
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & java.awt.event.HierarchyEvent.SHOWING_CHANGED) == 0) return;
+            if (isShowing()) {
+                refresh();
+                timer.start();
+            } else {
+                timer.stop();
+            }
+        });
+    }
+
+    private JComponent buildUiView() {
+        JPanel labels = new JPanel(new GridLayout(2, 1));
+        labels.add(edtLabel);
+        labels.add(stallLabel);
+
+        JTable offenders = new JTable(offendersModel);
+        offenders.setAutoCreateRowSorter(true);
+        offenders.getColumnModel().getColumn(0).setPreferredWidth(300);
+        JTable stallTable = new JTable(stallsModel);
+        stallTable.getColumnModel().getColumn(2).setPreferredWidth(300);
+        stallTable.getSelectionModel().addListSelectionListener(e -> {
+            int row = stallTable.getSelectedRow();
+            stackArea.setText(row >= 0 && row < shownStalls.size() ? shownStalls.get(row).getStack() : "");
+            stackArea.setCaretPosition(0);
+        });
+        stackArea.setEditable(false);
+        stackArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JSplitPane lists = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                titled(new JScrollPane(offenders), "Worst offenders"),
+                titled(new JScrollPane(stallTable), "Stalls (newest first, select for stack)"));
+        lists.setResizeWeight(0.5);
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                lists, titled(new JScrollPane(stackArea), "Blocking stack"));
+        split.setResizeWeight(0.5);
+
+        JPanel p = new JPanel(new BorderLayout(8, 8));
+        p.add(labels, BorderLayout.NORTH);
+        p.add(split, BorderLayout.CENTER);
+        return p;
+    }
+
+    private void refresh() {
+        org.example.QueryMetrics m = org.example.QueryMetrics.get();
+        poolLabel.setText("Connection pool: " + m.getPoolStats());
+        acquireLabel.setText(String.format("Connection acquire: p50 %.2f ms | p95 %.2f ms | p99 %.2f ms | max %.2f ms"
+                        + "    Queries: %d (slow: %d)",
+                m.getConnectionAcquireP50Millis(), m.getConnectionAcquireP95Millis(),
+                m.getConnectionAcquireP99Millis(), m.getConnectionAcquireMaxMillis(),
+                m.getQueryCount(), m.getSlowQueryCount()));
+
+        opsModel.setRowCount(0);
+        for (org.example.QueryMetrics.OperationSnapshot s : m.getOperations()) {
+            opsModel.addRow(new Object[]{
+                    s.getOperation(), s.getCalls(), s.getErrors(),
+                    round(s.getAvgMillis()), round(s.getP50Millis()), round(s.getP95Millis()),
+                    round(s.getP99Millis()), round(s.getMaxMillis()), round(s.getAvgRows())
+            });
+        }
+
+        SimpleDateFormat time = new SimpleDateFormat("HH:mm:ss");
+        List<org.example.QueryMetrics.SlowQuery> slow = m.getSlowQueries();
+        slowModel.setRowCount(0);
+        for (org.example.QueryMetrics.SlowQuery q : slow) {
+            slowModel.addRow(new Object[]{
+                    time.format(new Date(q.getTimestamp())), q.getOperation() + (q.isFailed() ? " (failed)" : ""),
+                    q.getMillis(), q.getRows(), q.getSql(), q.getBinds()
+            });
+        }
+
+        refreshUi(time);
+
+        startupModel.setRowCount(0);
+        for (org.example.StartupTimer.Phase p : org.example.StartupTimer.getPhases()) {
+            startupModel.addRow(new Object[]{
+                    p.getName(), p.getAtMillis(), p.getTookMillis() < 0 ? "" : p.getTookMillis(), p.getThread()
+            });
+        }
+    }
+
+    private void refreshUi(SimpleDateFormat time) {
+        org.example.EdtWatchdog w = org.example.EdtWatchdog.get();
+        org.example.LatencyHistogram lat = w.getLatency();
+        org.example.LatencyHistogram dur = w.getStallDurations();
+        edtLabel.setText(String.format("EDT latency: p50 %.1f ms | p95 %.1f ms | p99 %.1f ms | max %.1f ms (%d probes)",
+                lat.percentileMillis(50), lat.percentileMillis(95), lat.percentileMillis(99),
+                lat.getMaxMillis(), lat.getCount()));
+        stallLabel.setText(String.format("Stalls (>= %d ms): %d | p50 %.0f ms | p95 %.0f ms | p99 %.0f ms | max %.0f ms",
+                w.getStallThresholdMillis(), dur.getCount(), dur.percentileMillis(50),
+                dur.percentileMillis(95), dur.percentileMillis(99), dur.getMaxMillis()));
+
+        List<org.example.EdtWatchdog.Stall> stalls = w.getStalls();
+        if (stalls.equals(shownStalls)) return;          // keep the selection while nothing changed
+        shownStalls = stalls;
+
+        // total stall time per place, worst first
+        java.util.Map<String, long[]> byCulprit = new java.util.HashMap<>();
+        for (org.example.EdtWatchdog.Stall s : stalls) {
+            long[] agg = byCulprit.computeIfAbsent(s.getCulprit(), k -> new long[3]);
+            agg[0]++;
+            agg[1] += s.getMillis();
+            agg[2] = Math.max(agg[2], s.getMillis());
+        }
+        offendersModel.setRowCount(0);
+        byCulprit.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                .forEach(e -> offendersModel.addRow(new Object[]{e.getKey(), e.getValue()[0], e.getValue()[1], e.getValue()[2]}));
+
+        stallsModel.setRowCount(0);
+        for (org.example.EdtWatchdog.Stall s : stalls) {
+            stallsModel.addRow(new Object[]{
+                    time.format(new Date(s.getTimestamp())), s.getMillis(), s.getCulprit(),
+                    s.getHits() + "/" + s.getSamples()
+            });
+        }
+        stackArea.setText("");
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+
+    private static DefaultTableModel readOnlyModel(String... columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override public boolean isCellEditable(int row, int col) { return false; }
+
+            @Override public Class<?> getColumnClass(int col) {
+                // numbers sort as numbers
+                return getRowCount() > 0 && getValueAt(0, col) != null ? getValueAt(0, col).getClass() : Object.class;
+            }
+        };
+    }
+
+    private static JComponent titled(JComponent c, String title) {
+        c.setBorder(BorderFactory.createTitledBorder(title));
+        return c;
+    }
+}
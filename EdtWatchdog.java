@@ -0,0 +1,214 @@
+package org.example;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.logging.FileHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Watches how quickly the Swing event dispatch thread (EDT) responds.
+ * - Every PROBE_MS a probe is posted with invokeLater; the delay until it runs is the EDT latency.
+ * - If a probe waits longer than tierheim.edt.stallMs (default 500), the EDT is stalled: its stack
+ *   is sampled while the stall lasts, and when it ends the stall (duration + the most frequent
+ *   stack) goes to a rolling log (~/.tierheim/logs/edt-stalls.N.log) and the Diagnostics tab.
+ * Off with -Dtierheim.edt.watchdog=false.
+ */
+public final class EdtWatchdog {
+
+    private static final boolean ENABLED = !"false".equals(System.getProperty("tierheim.edt.watchdog"));
+    private static final long PROBE_MS = 100;
+    private static final long STALL_MS = Long.getLong("tierheim.edt.stallMs", 500);
+    private static final int MAX_STALLS = 100;
+    private static final int MAX_FRAMES = 40;
+    private static final int LOG_LIMIT_BYTES = 1024 * 1024;
+    private static final int LOG_FILES = 5;
+
+    private static final class Holder {
+        static final EdtWatchdog INSTANCE = new EdtWatchdog();
+    }
+
+    public static EdtWatchdog get() {
+        return Holder.INSTANCE;
+    }
+
+    private final LatencyHistogram latency = new LatencyHistogram();       // every probe
+    private final LatencyHistogram stallDurations = new LatencyHistogram(); // stalls only
+    private final Deque<Stall> stalls = new ArrayDeque<>();                 // newest first, guarded by itself
+    private final Logger log = Logger.getLogger("org.example.edt-stalls");
+
+    private volatile Thread edt;
+    private volatile long pendingSince;         // nanoTime the open probe was posted, 0 = none
+    private Thread watcher;
+
+    private EdtWatchdog() {
+        log.setUseParentHandlers(false);
+        try {
+            Path dir = Path.of(System.getProperty("user.home"), ".tierheim", "logs");
+            Files.createDirectories(dir);
+            FileHandler fh = new FileHandler(dir.resolve("edt-stalls.%g.log").toString(),
+                    LOG_LIMIT_BYTES, LOG_FILES, true);
+            fh.setFormatter(new SimpleFormatter());
+            log.addHandler(fh);
+        } catch (IOException e) {
+            // no file: stalls still show up in the Diagnostics tab and on stderr
+            log.setUseParentHandlers(true);
+        }
+    }
+
+    /**
+     * Starts the watcher thread once; later calls do nothing.
+     * Call it on the EDT (MainFrame does), so a stall of the very first probe can be sampled too.
+     */
+    public synchronized void start() {
+        if (!ENABLED || watcher != null) return;
+        if (SwingUtilities.isEventDispatchThread()) edt = Thread.currentThread();
+        watcher = new Thread(this::watch, "edt-watchdog");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch() {
+        try {
+            if (edt == null) {
+                // started off the EDT: learn it once before the first probe
+                SwingUtilities.invokeAndWait(() -> edt = Thread.currentThread());
+            }
+            while (true) {
+                long posted = System.nanoTime();
+                pendingSince = posted;
+                SwingUtilities.invokeLater(() -> probeRan(posted));
+
+                // wait for the probe; sample the EDT stack while it is overdue
+                Map<String, Integer> samples = null;
+                StackTraceElement[] first = null;
+                while (pendingSince == posted) {
+                    Thread.sleep(PROBE_MS / 2);
+                    long waited = (System.nanoTime() - posted) / 1_000_000;
+                    Thread t = edt;
+                    if (waited >= STALL_MS && t != null && pendingSince == posted) {
+                        StackTraceElement[] stack = t.getStackTrace();
+                        if (samples == null) { samples = new HashMap<>(); first = stack; }
+                        samples.merge(format(stack), 1, Integer::sum);
+                    }
+                }
+                if (samples != null) {
+                    stallEnded(posted, samples, first);
+                }
+                Thread.sleep(PROBE_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (java.lang.reflect.InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());   // cannot happen: the assignment does not throw
+        }
+    }
+
+    private void probeRan(long posted) {
+        edt = Thread.currentThread();          // Swing starts a new EDT after an uncaught exception
+        latency.record(System.nanoTime() - posted);
+        pendingSince = 0;
+    }
+
+    private void stallEnded(long posted, Map<String, Integer> samples, StackTraceElement[] first) {
+        long nanos = System.nanoTime() - posted;
+        stallDurations.record(nanos);
+
+        // the stack seen most often is where the EDT spent the stall
+        Map.Entry<String, Integer> top = Collections.max(samples.entrySet(), Map.Entry.comparingByValue());
+        int total = samples.values().stream().mapToInt(Integer::intValue).sum();
+        Stall s = new Stall(System.currentTimeMillis(), nanos / 1_000_000, culprit(first),
+                top.getKey(), top.getValue(), total);
+        synchronized (stalls) {
+            stalls.addFirst(s);
+            if (stalls.size() > MAX_STALLS) stalls.removeLast();
+        }
+        log.log(Level.WARNING, "EDT stalled " + s.getMillis() + " ms in " + s.getCulprit()
+                + " (" + top.getValue() + "/" + total + " samples)\n" + top.getKey());
+    }
+
+    /** Pool / instrumentation frames, not where the blocking call came from. */
+    private static final List<String> PLUMBING = List.of(
+            "org.example.EdtWatchdog", "org.example.ConnectionPool", "org.example.InstrumentedJdbc", "org.example.Database");
+
+    /** First frame of our own code, e.g. "TierheimService.countALL:612" - usually what blocked. */
+    private static String culprit(StackTraceElement[] stack) {
+        for (StackTraceElement e : stack) {
+            String c = e.getClassName();
+            if (c.startsWith("org.example.") && PLUMBING.stream().noneMatch(c::startsWith)) {
+                String cls = e.getClassName().substring("org.example.".length());
+                return cls + "." + e.getMethodName() + ":" + e.getLineNumber();
+            }
+        }
+        return stack.length > 0 ? stack[0].toString() : "?";
+    }
+
+    private static String format(StackTraceElement[] stack) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.min(stack.length, MAX_FRAMES); i++) {
+            sb.append("\tat ").append(stack[i]).append('\n');
+        }
+        if (stack.length > MAX_FRAMES) sb.append("\t... ").append(stack.length - MAX_FRAMES).append(" more\n");
+        return sb.toString();
+    }
+
+    /* ---------- read side (Diagnostics tab) ---------- */
+
+    public LatencyHistogram getLatency() { return latency; }
+
+    public LatencyHistogram getStallDurations() { return stallDurations; }
+
+    public long getStallThresholdMillis() { return STALL_MS; }
+
+    public List<Stall> getStalls() {
+        synchronized (stalls) {
+            return new ArrayList<>(stalls);
+        }
+    }
+
+    public void reset() {
+        latency.reset();
+        stallDurations.reset();
+        synchronized (stalls) {
+            stalls.clear();
+        }
+    }
+
+    /** One stall of the EDT. */
+    public static final class Stall {
+        private final long timestamp;
+        private final long millis;
+        private final String culprit;
+        private final String stack;
+        private final int hits;
+        private final int samples;
+
+        Stall(long timestamp, long millis, String culprit, String stack, int hits, int samples) {
+            this.timestamp = timestamp;
+            this.millis = millis;
+            this.culprit = culprit;
+            this.stack = stack;
+            this.hits = hits;
+            this.samples = samples;
+        }
+
+        public long getTimestamp() { return timestamp; }
+        public long getMillis() { return millis; }
+        /** Our own frame on top of the first sampled stack. */
+        public String getCulprit() { return culprit; }
+        /** Most frequent stack during the stall. */
+        public String getStack() { return stack; }
+        public int getHits() { return hits; }
+        public int getSamples() { return samples; }
+
+        @Override
+        public String toString() {
+            return Instant.ofEpochMilli(timestamp) + " " + millis + " ms in " + culprit;
+        }
+    }
+}
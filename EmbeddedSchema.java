@@ -0,0 +1,101 @@
+package org.example;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tables of the embedded database, the same as on the MySQL server.
+ * Every statement is CREATE ... IF NOT EXISTS, so running it on each start is cheap and safe.
+ * Changes to the MySQL schema (sql/migrations/) are added here as well.
+ */
+final class EmbeddedSchema {
+
+    private static final String[] STATEMENTS = {
+            """
+            CREATE TABLE IF NOT EXISTS enclosures (
+              id       INT AUTO_INCREMENT PRIMARY KEY,
+              name     VARCHAR(100),
+              capacity INT NOT NULL
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS animals (
+              id           INT AUTO_INCREMENT PRIMARY KEY,
+              name         VARCHAR(100) NOT NULL,
+              species      VARCHAR(100) NOT NULL,
+              age          INT,
+              inclosure_id INT,
+              sex          CHAR(1),
+              color        VARCHAR(50),
+              arrival_date DATE,
+              health_note  VARCHAR(500),
+              birth_date   DATE,
+              FOREIGN KEY (inclosure_id) REFERENCES enclosures (id)
+            )
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_animals_dup ON animals (name, species, birth_date)",
+            // duplicate identity as a unique key (see sql/migrations/001_animals_duplicate_key.sql)
+            """
+            ALTER TABLE animals ADD COLUMN IF NOT EXISTS dup_key VARCHAR(255)
+              GENERATED ALWAYS AS (CONCAT_WS('|', LOWER(TRIM(name)), LOWER(TRIM(species)), birth_date))
+            """,
+            "CREATE UNIQUE INDEX IF NOT EXISTS uq_animals_dup ON animals (dup_key)",
+            "CREATE INDEX IF NOT EXISTS idx_animals_enclosure ON animals (inclosure_id)",
+            // change log for syncing desks (see sql/migrations/002_animal_changes.sql)
+            """
+            CREATE TABLE IF NOT EXISTS animal_changes (
+              seq        BIGINT AUTO_INCREMENT PRIMARY KEY,
+              animal_id  INT NOT NULL,
+              op         CHAR(1) NOT NULL,
+              origin     VARCHAR(36) NOT NULL,
+              changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )
+            """,
+            // feeding_plan and opening_hours are unverified: their DAOs (FeedingPlanDao, OpeningHoursDao)
+            // are not in this source tree, so the columns below follow the UI, not the DAOs' SQL
+            """
+            CREATE TABLE IF NOT EXISTS feeding_plan (
+              id        INT AUTO_INCREMENT PRIMARY KEY,
+              weekday   TINYINT NOT NULL,
+              animal    VARCHAR(100) NOT NULL,
+              food      VARCHAR(100) NOT NULL,
+              quantity  DECIMAL(10, 2),
+              unit      VARCHAR(20),
+              feed_time TIME,
+              notes     VARCHAR(500),
+              medicine  VARCHAR(200)
+            )
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_feeding_weekday ON feeding_plan (weekday)",
+            """
+            CREATE TABLE IF NOT EXISTS opening_hours (
+              weekday    TINYINT PRIMARY KEY,
+              is_open    BOOLEAN NOT NULL DEFAULT FALSE,
+              open_time  TIME,
+              close_time TIME,
+              note       VARCHAR(255)
+            )
+            """,
+            // holidays and other special dates (see sql/migrations/003_opening_exceptions.sql)
+            """
+            CREATE TABLE IF NOT EXISTS opening_exceptions (
+              exception_date DATE PRIMARY KEY,
+              is_open        BOOLEAN NOT NULL DEFAULT FALSE,
+              open_time      TIME,
+              close_time     TIME,
+              note           VARCHAR(255)
+            )
+            """
+    };
+
+    private EmbeddedSchema() {}
+
+    static void create(Connection c) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            for (String sql : STATEMENTS) {
+                st.execute(sql);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.example;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Enclosures tab: every enclosure with occupancy, fill level and free slots.
+ * - Rows come from OccupancyCache, which is loaded with one enclosures LEFT JOIN animals GROUP BY
+ *   query (findAllEnclosures), not one lookup per enclosure.
+ * - The cache reports what changed (local inserts/deletes right away, other clients with its
+ *   periodic refresh); only those rows are patched, with the cache's current numbers for them
+ *   (events from different threads may arrive out of order).
+ */
+public class EnclosuresPanel extends JPanel {
+
+    private final EnclosureTableModel model = new EnclosureTableModel();
+    private final JLabel summaryLabel = new JLabel(" ");
+    private final JButton btnRefresh = new JButton("Refresh");
+
+    private final org.example.OccupancyCache.Listener listener = (changed, removedIds) -> {
+        Set<Integer> ids = new HashSet<>(removedIds);
+        for (org.example.Gehege g : changed) ids.add(g.getId());
+        SwingUtilities.invokeLater(() -> {
+            model.apply(ids);
+            updateSummary();
+        });
+    };
+
+    public EnclosuresPanel() {
+        setLayout(new BorderLayout(8, 8));
+        setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(summaryLabel, BorderLayout.CENTER);
+        top.add(btnRefresh, BorderLayout.EAST);
+        add(top, BorderLayout.NORTH);
+
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.getColumnModel().getColumn(1).setPreferredWidth(200);
+        table.getColumnModel().getColumn(5).setPreferredWidth(200);
+        table.getColumnModel().getColumn(5).setCellRenderer(new org.example.BarRenderer(100));
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        btnRefresh.addActionListener(e -> load());
+    }
+
+    private static final String PREFETCH_KEY = "enclosures";
+
+    private static java.util.List<org.example.Gehege> readAll() throws Exception {
+        org.example.OccupancyCache.get().refresh();
+        return org.example.OccupancyCache.get().snapshot();
+    }
+
+    /** Starts loading the enclosures at startup, before the tab is built. */
+    public static void prefetch() {
+        org.example.Prefetch.start(PREFETCH_KEY, EnclosuresPanel::readAll);
+    }
+
+    /** Reloads the cache (one aggregate query) in the background; changed rows arrive via the listener. */
+    private void load() {
+        org.example.DbExecutor.run(this, "enclosures", () -> org.example.Prefetch.take(PREFETCH_KEY, EnclosuresPanel::readAll), all -> {
+            model.setAll(all);
+            updateSummary();
+        }, ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Loading enclosures failed: " + ex.getMessage());
+        });
+    }
+
+    private void updateSummary() {
+        int capacity = 0, occupied = 0, full = 0;
+        for (org.example.Gehege g : model.rows) {
+            capacity += g.getCapacity();
+            occupied += g.getOccupancy();
+            if (g.getOccupancy() >= g.getCapacity()) full++;
+        }
+        summaryLabel.setText("Enclosures: " + model.rows.size() + "    Occupied: " + occupied + "/" + capacity
+                + "    Free: " + Math.max(0, capacity - occupied) + "    Full: " + full);
+    }
+
+    /** Listens to the cache only while the panel is part of a window. */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        org.example.OccupancyCache cache = org.example.OccupancyCache.get();
+        cache.addListener(listener);
+        if (cache.isLoaded()) {
+            model.setAll(cache.snapshot());
+            updateSummary();
+        } else {
+            load();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        org.example.OccupancyCache.get().removeListener(listener);
+        super.removeNotify();
+    }
+
+    /* ---------- model ---------- */
+
+    /** Enclosures ordered by id; patched row by row. */
+    private static final class EnclosureTableModel extends AbstractTableModel {
+        private final String[] cols = {"ID", "Name", "Capacity", "Occupied", "Free", "Fill"};
+        private final List<org.example.Gehege> rows = new ArrayList<>();
+
+        void setAll(List<org.example.Gehege> all) {
+            rows.clear();
+            rows.addAll(all);
+            rows.sort(Comparator.comparingInt(org.example.Gehege::getId));
+            fireTableDataChanged();
+        }
+
+        /** Brings the rows of these ids in line with the cache (update, insert or delete). */
+        void apply(Set<Integer> ids) {
+            for (int id : ids) {
+                org.example.Gehege g = org.example.OccupancyCache.get().find(id);
+                int row = indexOf(id);
+                if (g == null) {
+                    if (row >= 0) {
+                        rows.remove(row);
+                        fireTableRowsDeleted(row, row);
+                    }
+                } else if (row >= 0) {
+                    rows.set(row, g);
+                    fireTableRowsUpdated(row, row);
+                } else {
+                    int at = -row - 1;
+                    rows.add(at, g);
+                    fireTableRowsInserted(at, at);
+                }
+            }
+        }
+
+        /** Row of the id, or -(insertion point) - 1. */
+        private int indexOf(int id) {
+            int lo = 0, hi = rows.size() - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int midId = rows.get(mid).getId();
+                if (midId == id) return mid;
+                if (midId < id) lo = mid + 1;
+                else hi = mid - 1;
+            }
+            return -lo - 1;
+        }
+
+        @Override public int getRowCount() { return rows.size(); }
+        @Override public int getColumnCount() { return cols.length; }
+        @Override public String getColumnName(int col) { return cols[col]; }
+
+        @Override
+        public Class<?> getColumnClass(int col) {
+            return col == 1 ? String.class : Integer.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int col) {
+            org.example.Gehege g = rows.get(row);
+            return switch (col) {
+                case 0 -> g.getId();
+                case 1 -> g.getName();
+                case 2 -> g.getCapacity();
+                case 3 -> g.getOccupancy();
+                case 4 -> Math.max(0, g.getCapacity() - g.getOccupancy());
+                case 5 -> g.getCapacity() <= 0 ? 100 : (int) Math.round(100.0 * g.getOccupancy() / g.getCapacity());
+                default -> "";
+            };
+        }
+    }
+}
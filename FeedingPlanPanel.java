@@ -5,14 +5,32 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Feeding plan per weekday.
+ * - The whole week is cached (weekday -> rows); switching days is served from memory.
+ * - Add/edit/delete patch only the affected day.
+ * - The week is revalidated in the background on "Refresh" and every
+ *   tierheim.feeding.revalidateSeconds (default 60) while the tab is visible, to pick up other
+ *   clients' changes; only days whose content differs are replaced.
+ */
 public class FeedingPlanPanel extends JPanel {
 
+    private static final int REVALIDATE_SECONDS = Integer.getInteger("tierheim.feeding.revalidateSeconds", 60);
+
     private final org.example.FeedingPlanDao dao = new org.example.FeedingPlanDao();
 
+    // weekday (1..7) -> rows of that day; a day is missing until the first load has read it
+    private final Map<Integer, List<org.example.FeedingPlanRow>> week = new HashMap<>();
+    private int shownWeekday;
+    private final Timer revalidateTimer = new Timer(REVALIDATE_SECONDS * 1000, e -> loadWeek());
+
     private JTable table;
-    private org.example.FeedingPlanTableModel model;
+    private final DayModel model = new DayModel();     // the shown day; changed only through its methods
 
     private final JComboBox<String> cbWeekday = new JComboBox<>(new String[]{
             "1 Mon", "2 Tue", "3 Wed", "4 Thu", "5 Fri", "6 Sat", "7 Sun"
@@ -30,7 +48,7 @@ public class FeedingPlanPanel extends JPanel {
         buildTable();
         selectToday();
         wireActions();
-        load(); // initial
+        loadWeek(); // initial
     }
 
     /* ---------- UI ---------- */
@@ -54,7 +72,6 @@ public class FeedingPlanPanel extends JPanel {
     }
 
     private void buildTable() {
-        model = new org.example.FeedingPlanTableModel(java.util.Collections.emptyList());
         table = new JTable(model);
         table.setFillsViewportHeight(true);
         table.setAutoCreateRowSorter(true);
@@ -74,16 +91,24 @@ public class FeedingPlanPanel extends JPanel {
     /* ---------- Actions ---------- */
 
     private void wireActions() {
-        cbWeekday.addActionListener(e -> load());
-        btnRefresh.addActionListener(e -> load());
+        cbWeekday.addActionListener(e -> showDay(selectedWeekday()));
+        btnRefresh.addActionListener(e -> loadWeek());
         btnAdd.addActionListener(e -> addNew());
         btnEdit.addActionListener(e -> editSelected());
         btnDelete.addActionListener(e -> deleteSelected());
+
+        // revalidate only while the tab is on screen
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & java.awt.event.HierarchyEvent.SHOWING_CHANGED) == 0) return;
+            if (isShowing()) revalidateTimer.start();
+            else revalidateTimer.stop();
+        });
     }
 
     private void selectToday() {
         int today = LocalDate.now().getDayOfWeek().getValue(); // 1..7
         cbWeekday.setSelectedIndex(today - 1);
+        shownWeekday = today;
     }
 
     /* ---------- Data ---------- */
@@ -95,15 +120,77 @@ public class FeedingPlanPanel extends JPanel {
         return Integer.parseInt(item.substring(0, 1));
     }
 
-    private void load() {
-        try {
-            List<org.example.FeedingPlanRow> rows = dao.listForWeekday(selectedWeekday());
-            model = new org.example.FeedingPlanTableModel(rows);
-            table.setModel(model);
-        } catch (Exception ex) {
+    private static final String PREFETCH_KEY = "feedingPlan";
+
+    private static Map<Integer, List<org.example.FeedingPlanRow>> readWeek(org.example.FeedingPlanDao dao) throws Exception {
+        Map<Integer, List<org.example.FeedingPlanRow>> loaded = new HashMap<>();
+        for (int d = 1; d <= 7; d++) loaded.put(d, dao.listForWeekday(d));
+        return loaded;
+    }
+
+    /** Starts reading the week at startup, before the tab is built. */
+    public static void prefetch() {
+        org.example.FeedingPlanDao dao = new org.example.FeedingPlanDao();
+        org.example.Prefetch.start(PREFETCH_KEY, () -> readWeek(dao));
+    }
+
+    /** Shows a day from the cache; nothing is read from the database. */
+    private void showDay(int weekday) {
+        shownWeekday = weekday;
+        model.setRows(week.getOrDefault(weekday, List.of()));
+    }
+
+    /**
+     * Reads all seven days in one background job and replaces the days that changed.
+     * The first load shows a wait cursor; revalidations run silently.
+     */
+    private void loadWeek() {
+        boolean first = week.isEmpty();
+        org.example.DbExecutor.run(first ? this : null, "week", () -> first
+                ? org.example.Prefetch.take(PREFETCH_KEY, () -> readWeek(dao))
+                : readWeek(dao), loaded -> {
+            for (Map.Entry<Integer, List<org.example.FeedingPlanRow>> e : loaded.entrySet()) {
+                dayLoaded(e.getKey(), e.getValue());
+            }
+        }, ex -> {
             ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Load failed: " + ex.getMessage());
+            if (first) JOptionPane.showMessageDialog(this, "Load failed: " + ex.getMessage());
+        });
+    }
+
+    /** Re-reads one day, e.g. after an insert (the DAO does not return the generated id). */
+    private void reloadDay(int weekday) {
+        org.example.DbExecutor.run(this, "day" + weekday, () -> dao.listForWeekday(weekday),
+                loaded -> dayLoaded(weekday, loaded), ex -> {
+                    ex.printStackTrace();
+                    JOptionPane.showMessageDialog(this, "Load failed: " + ex.getMessage());
+                });
+    }
+
+    /** Takes fresh rows for a day; the table is only touched if that day is shown and differs. */
+    private void dayLoaded(int weekday, List<org.example.FeedingPlanRow> loaded) {
+        List<org.example.FeedingPlanRow> old = week.get(weekday);
+        if (old != null && signature(old) == signature(loaded)) return;      // unchanged
+        week.put(weekday, new ArrayList<>(loaded));
+        if (weekday == shownWeekday) showDay(weekday);
+    }
+
+    /** Content hash of a day as the table shows it (FeedingPlanRow has no equals). */
+    private static long signature(List<org.example.FeedingPlanRow> day) {
+        org.example.FeedingPlanTableModel m = new org.example.FeedingPlanTableModel(day);
+        long h = day.size();
+        for (int r = 0; r < m.getRowCount(); r++) {
+            h = 31 * h + day.get(r).getId();
+            for (int c = 0; c < m.getColumnCount(); c++) {
+                h = 31 * h + java.util.Objects.hashCode(m.getValueAt(r, c));
+            }
         }
+        return h;
+    }
+
+    /** The cached list of a day (created if the day is not loaded yet). */
+    private List<org.example.FeedingPlanRow> day(int weekday) {
+        return week.computeIfAbsent(weekday, d -> new ArrayList<>());
     }
 
     private Frame ownerFrame() {
@@ -119,13 +206,12 @@ public class FeedingPlanPanel extends JPanel {
         org.example.FeedingPlanRow row = dlg.getRow();
         row.setWeekday(selectedWeekday());
 
-        try {
-            dao.insert(row);
-            load();
-        } catch (Exception ex) {
+        // the DAO does not hand back the generated id, so only that day is re-read
+        int weekday = row.getWeekday();
+        org.example.DbExecutor.execute(this, () -> dao.insert(row), () -> reloadDay(weekday), ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Insert failed: " + ex.getMessage());
-        }
+        });
     }
 
     private void editSelected() {
@@ -141,13 +227,27 @@ public class FeedingPlanPanel extends JPanel {
         dlg.setVisible(true);
         if (!dlg.isSaved()) return;
 
-        try {
-            dao.update(dlg.getRow());
-            load();
-        } catch (Exception ex) {
+        org.example.FeedingPlanRow edited = dlg.getRow();
+        int oldDay = shownWeekday;
+        org.example.DbExecutor.execute(this, () -> dao.update(edited), () -> {
+            List<org.example.FeedingPlanRow> dayRows = day(oldDay);
+            int pos = dayRows.indexOf(current);
+            if (pos < 0 || (edited.getWeekday() != 0 && edited.getWeekday() != oldDay)) {
+                // moved to another day (or no longer cached): patch both days from the database
+                if (pos >= 0) dayRows.remove(pos);
+                reloadDay(oldDay);
+                if (edited.getWeekday() != 0) reloadDay(edited.getWeekday());
+                return;
+            }
+            dayRows.set(pos, edited);
+            if (oldDay != shownWeekday) return;
+            int idx = model.indexOf(current);
+            if (idx < 0) { showDay(shownWeekday); return; }
+            model.setRow(idx, edited);
+        }, ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Update failed: " + ex.getMessage());
-        }
+        });
     }
 
     private void deleteSelected() {
@@ -163,12 +263,66 @@ public class FeedingPlanPanel extends JPanel {
         int modelRow = table.convertRowIndexToModel(viewRow);
         org.example.FeedingPlanRow r = model.getRow(modelRow);
 
-        try {
-            dao.deleteById(r.getId());
-            load();
-        } catch (Exception ex) {
+        int id = r.getId();
+        int weekday = shownWeekday;
+        org.example.DbExecutor.execute(this, () -> dao.deleteById(id), () -> {
+            day(weekday).remove(r);
+            if (weekday != shownWeekday) return;
+            int idx = model.indexOf(r);
+            if (idx >= 0) model.removeRow(idx);
+        }, ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Delete failed: " + ex.getMessage());
+        });
+    }
+
+    /* ---------- Table model ---------- */
+
+    /**
+     * The shown day. Holds its own copy of the rows and hands FeedingPlanTableModel (which knows
+     * the columns) a fresh list on every change, so nothing depends on that model reading a
+     * shared list by reference. A day has a few dozen rows at most, so rebuilding it is cheap.
+     */
+    private static final class DayModel extends javax.swing.table.AbstractTableModel {
+        private List<org.example.FeedingPlanRow> rows = List.of();
+        private org.example.FeedingPlanTableModel columns = new org.example.FeedingPlanTableModel(rows);
+
+        void setRows(List<org.example.FeedingPlanRow> day) {
+            replace(new ArrayList<>(day));
+            fireTableDataChanged();
+        }
+
+        void setRow(int index, org.example.FeedingPlanRow row) {
+            List<org.example.FeedingPlanRow> copy = new ArrayList<>(rows);
+            copy.set(index, row);
+            replace(copy);
+            fireTableRowsUpdated(index, index);
         }
+
+        void removeRow(int index) {
+            List<org.example.FeedingPlanRow> copy = new ArrayList<>(rows);
+            copy.remove(index);
+            replace(copy);
+            fireTableRowsDeleted(index, index);
+        }
+
+        int indexOf(org.example.FeedingPlanRow row) {
+            return rows.indexOf(row);
+        }
+
+        org.example.FeedingPlanRow getRow(int index) {
+            return rows.get(index);
+        }
+
+        private void replace(List<org.example.FeedingPlanRow> copy) {
+            rows = java.util.Collections.unmodifiableList(copy);
+            columns = new org.example.FeedingPlanTableModel(rows);
+        }
+
+        @Override public int getRowCount() { return rows.size(); }
+        @Override public int getColumnCount() { return columns.getColumnCount(); }
+        @Override public String getColumnName(int column) { return columns.getColumnName(column); }
+        @Override public Class<?> getColumnClass(int column) { return columns.getColumnClass(column); }
+        @Override public Object getValueAt(int row, int column) { return columns.getValueAt(row, column); }
     }
 }
\ No newline at end of file
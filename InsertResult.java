@@ -0,0 +1,45 @@
+package org.example;
+
+/** Outcome of TierheimService.insertChecked. */
+public class InsertResult {
+
+    public enum Status { INSERTED, ENCLOSURE_FULL, DUPLICATE, ENCLOSURE_NOT_FOUND }
+
+    private final Status status;
+    private final int id;            // generated id, 0 unless INSERTED
+    private final int capacity;      // enclosure capacity/occupancy at check time (0 if no enclosure)
+    private final int occupancy;
+    private final org.example.Tier animal;   // the row as stored, null unless INSERTED
+
+    InsertResult(Status status, int id, int capacity, int occupancy) {
+        this(status, id, capacity, occupancy, null);
+    }
+
+    InsertResult(Status status, int id, int capacity, int occupancy, org.example.Tier animal) {
+        this.status = status;
+        this.id = id;
+        this.capacity = capacity;
+        this.occupancy = occupancy;
+        this.animal = animal;
+    }
+
+    public Status getStatus() { return status; }
+    public boolean isInserted() { return status == Status.INSERTED; }
+    public int getId() { return id; }
+    public int getCapacity() { return capacity; }
+    public int getOccupancy() { return occupancy; }
+
+    /** Persisted animal with generated id, resolved birth date and age - lets the UI patch its row. */
+    public org.example.Tier getAnimal() { return animal; }
+
+    /** User facing text for a failed insert. */
+    public String getMessage(Integer enclosureId) {
+        return switch (status) {
+            case INSERTED -> "Inserted with ID " + id;
+            case ENCLOSURE_FULL -> "Enclosure " + enclosureId + " is FULL!\n"
+                    + "Capacity: " + capacity + " | Current: " + occupancy;
+            case DUPLICATE -> "Animal already exists (same name, species, birth_date).";
+            case ENCLOSURE_NOT_FOUND -> "Enclosure " + enclosureId + " not found.";
+        };
+    }
+}
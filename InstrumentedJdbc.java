@@ -0,0 +1,172 @@
+package org.example;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Statement/ResultSet wrappers that feed QueryMetrics.
+ * - Latency = time inside execute*() plus time inside ResultSet.next() (streamed rows),
+ *   not the caller's work between rows.
+ * - Rows = rows read for queries, update counts for writes.
+ * - Bind values are remembered per statement for the slow-query log.
+ */
+final class InstrumentedJdbc {
+
+    /** Frames skipped when looking for the DAO method that prepared a statement. */
+    private static final Set<String> INFRASTRUCTURE = Set.of(
+            InstrumentedJdbc.class.getName(),
+            org.example.ConnectionPool.class.getName(),
+            org.example.ConnectionPool.class.getName() + "$PooledHandler",
+            org.example.Database.class.getName());
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private InstrumentedJdbc() {}
+
+    /** Wraps a statement returned by Connection.prepareStatement/createStatement/prepareCall. */
+    static Statement wrap(Statement raw, Class<?> type, String sql) {
+        StatementHandler h = new StatementHandler(raw, sql, callerOperation());
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, h);
+    }
+
+    /** "TierheimService.findAll" for the first frame outside the pool, the JDK and proxies. */
+    private static String callerOperation() {
+        return WALKER.walk(frames -> frames
+                .filter(f -> !INFRASTRUCTURE.contains(f.getClassName())
+                        && !f.getClassName().startsWith("java.")
+                        && !f.getClassName().startsWith("jdk.")
+                        && !f.getClassName().startsWith("com.sun.proxy")
+                        && !f.getClassName().contains("$Proxy"))
+                .findFirst()
+                .map(f -> {
+                    String cls = f.getClassName();
+                    cls = cls.substring(cls.lastIndexOf('.') + 1);
+                    int inner = cls.indexOf('$');                  // lambdas / inner classes -> outer class
+                    if (inner > 0) cls = cls.substring(0, inner);
+                    return cls + "." + f.getMethodName();
+                })
+                .orElse("unknown"));
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement raw;
+        private final String preparedSql;
+        private final String operation;
+        private final Map<Integer, Object> binds = new TreeMap<>();
+        private Execution open;         // query whose result set is still being read
+
+        StatementHandler(Statement raw, String preparedSql, String operation) {
+            this.raw = raw;
+            this.preparedSql = preparedSql;
+            this.operation = operation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            String name = m.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer idx) {
+                binds.put(idx, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                binds.clear();
+            }
+
+            boolean execute = name.startsWith("execute");
+            if (!execute) {
+                if (name.equals("close")) finishOpen();
+                return forward(raw, m, args);
+            }
+
+            finishOpen();
+            String sql = (args != null && args.length > 0 && args[0] instanceof String s) ? s : preparedSql;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = forward(raw, m, args);
+            } catch (Throwable t) {
+                org.example.QueryMetrics.get().record(operation, sql, new TreeMap<>(binds),
+                        System.nanoTime() - start, 0, true);
+                throw t;
+            }
+            long nanos = System.nanoTime() - start;
+
+            if (result instanceof ResultSet rs) {
+                open = new Execution(sql, new TreeMap<>(binds), nanos);
+                return wrapResultSet(rs, (Statement) proxy, open);
+            }
+            long rows = 0;
+            if (result instanceof Integer n) rows = Math.max(0, n);
+            else if (result instanceof Long n) rows = Math.max(0, n);
+            else if (result instanceof int[] counts) for (int c : counts) rows += Math.max(0, c);
+            else if (result instanceof long[] counts) for (long c : counts) rows += Math.max(0, c);
+            org.example.QueryMetrics.get().record(operation, sql, new TreeMap<>(binds), nanos, rows, false);
+            return result;
+        }
+
+        private static Object forward(Object target, Method m, Object[] args) throws Throwable {
+            try {
+                return m.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void finishOpen() {
+            if (open != null) {
+                open.finish(operation);
+                open = null;
+            }
+        }
+
+        /** Forwards to {@code rs}; getStatement answers with the statement proxy, not the raw statement. */
+        private Object wrapResultSet(ResultSet rs, Statement statement, Execution exec) {
+            return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, m, args) -> {
+                        switch (m.getName()) {
+                            case "next" -> {
+                                long start = System.nanoTime();
+                                boolean more = (Boolean) forward(rs, m, args);
+                                exec.nanos += System.nanoTime() - start;
+                                if (more) exec.rows++;
+                                return more;
+                            }
+                            case "close" -> {
+                                Object r = forward(rs, m, args);
+                                exec.finish(operation);
+                                if (open == exec) open = null;
+                                return r;
+                            }
+                            case "getStatement" -> { return statement; }
+                            default -> { return forward(rs, m, args); }
+                        }
+                    });
+        }
+    }
+
+    /** A query from execute until its result set is closed. */
+    private static final class Execution {
+        final String sql;
+        final Map<Integer, Object> binds;
+        long nanos;
+        long rows;
+        boolean finished;
+
+        Execution(String sql, Map<Integer, Object> binds, long nanos) {
+            this.sql = sql;
+            this.binds = binds;
+            this.nanos = nanos;
+        }
+
+        void finish(String operation) {
+            if (finished) return;
+            finished = true;
+            org.example.QueryMetrics.get().record(operation, sql, binds, nanos, rows, false);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-scale buckets (4 per power of two, so ~25% resolution),
+ * from 1 µs up to about 12 days. Percentiles are the upper bound of the bucket they fall into.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 2;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = SUB + (40 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long nanos) {
+        long us = Math.max(0, nanos / 1000);
+        buckets.incrementAndGet(bucketOf(us));
+        count.incrementAndGet();
+        totalMicros.addAndGet(us);
+        maxMicros.accumulateAndGet(us, Math::max);
+    }
+
+    private static int bucketOf(long us) {
+        if (us < SUB) return (int) us;
+        int msb = 63 - Long.numberOfLeadingZeros(us);
+        int sub = (int) (us >>> (msb - SUB_BITS)) & (SUB - 1);
+        return Math.min(BUCKETS - 1, SUB + (msb - SUB_BITS) * SUB + sub);
+    }
+
+    /** Largest value (µs) that falls into the bucket. */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB) return bucket;
+        int msb = (bucket - SUB) / SUB + SUB_BITS;
+        int sub = (bucket - SUB) % SUB;
+        return ((long) (SUB + sub + 1) << (msb - SUB_BITS)) - 1;
+    }
+
+    public long getCount() { return count.get(); }
+
+    public double getMaxMillis() { return maxMicros.get() / 1000.0; }
+
+    public double getAvgMillis() {
+        long n = count.get();
+        return n == 0 ? 0 : totalMicros.get() / 1000.0 / n;
+    }
+
+    /** p in 0..100, e.g. 99 for p99. 0 if nothing was recorded. */
+    public double percentileMillis(double p) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(n * p / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), maxMicros.get()) / 1000.0;
+        }
+        return getMaxMillis();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        count.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+}
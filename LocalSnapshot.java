@@ -0,0 +1,229 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Local binary snapshot of what the app showed last (first page of animals, enclosures),
+ * so the next start can render at once, even with a slow or unreachable database.
+ * - File: tierheim.snapshot.file (default ~/.tierheim/snapshot.bin), read in one go into a heap
+ *   buffer (a few hundred rows). Not memory-mapped: a mapping stays open until GC and would block
+ *   replacing the file on Windows.
+ * - Read at startup with the other prefetches, off the EDT; await() hands it to the first tab.
+ * - Written on exit and after the first successful load, to "<file>.part" and then moved
+ *   into place, so a crash never leaves a half-written snapshot.
+ * - The snapshot is only a starting point: the panels reconcile it with the database in the
+ *   background and patch just the rows that differ.
+ * Layout (big endian): magic, version, savedAt, animal count + rows, enclosure count + rows;
+ * strings are an int byte length (-1 = null) followed by UTF-8, missing ints/dates are NULL.
+ */
+public final class LocalSnapshot {
+
+    private static final int MAGIC = 0x54534E50;        // "TSNP"
+    private static final int VERSION = 1;
+    private static final int NULL = Integer.MIN_VALUE;
+
+    private static final Path FILE = Path.of(System.getProperty("tierheim.snapshot.file",
+            System.getProperty("user.home") + "/.tierheim/snapshot.bin"));
+
+    private static final String PREFETCH_KEY = "snapshot";
+
+    private static volatile LocalSnapshot loaded;                               // read at startup
+    private static volatile boolean loading;                                    // prefetch still reading
+    private static volatile Supplier<List<org.example.Tier>> animalSource;      // set by the Animals tab
+
+    private final long savedAt;
+    private final List<org.example.Tier> animals;
+    private final List<org.example.Gehege> enclosures;
+
+    private LocalSnapshot(long savedAt, List<org.example.Tier> animals, List<org.example.Gehege> enclosures) {
+        this.savedAt = savedAt;
+        this.animals = animals;
+        this.enclosures = enclosures;
+    }
+
+    public long getSavedAt() { return savedAt; }
+    public List<org.example.Tier> getAnimals() { return animals; }
+    public List<org.example.Gehege> getEnclosures() { return enclosures; }
+
+    /* ---------- startup ---------- */
+
+    /** Starts reading the snapshot in the background (see load()); call once at startup. */
+    public static void prefetch() {
+        loading = true;
+        org.example.Prefetch.start(PREFETCH_KEY, () -> {
+            LocalSnapshot s = load();
+            if (s != null) org.example.StartupTimer.markOnce("snapshot loaded");
+            return s;
+        });
+    }
+
+    /** The snapshot once the prefetch has read it, or null. Blocking: call off the EDT. */
+    public static LocalSnapshot await() throws Exception {
+        return org.example.Prefetch.take(PREFETCH_KEY, LocalSnapshot::get);
+    }
+
+    /**
+     * Reads the snapshot (if any) and makes it available via get(); enclosures go straight into
+     * OccupancyCache unless it already has fresh numbers. Reads a file: call off the EDT.
+     */
+    public static LocalSnapshot load() {
+        try {
+            LocalSnapshot s = read(ByteBuffer.wrap(Files.readAllBytes(FILE)));
+            loaded = s;
+            if (s != null) org.example.OccupancyCache.get().restore(s.enclosures);
+            return s;
+        } catch (NoSuchFileException e) {
+            return null;                                   // first start
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable snapshot " + FILE + ": " + e);
+            return null;
+        } finally {
+            loading = false;
+        }
+    }
+
+    /** The snapshot read at startup, or null. */
+    public static LocalSnapshot get() {
+        return loaded;
+    }
+
+    /** Where save() takes the animals from (the Animals tab's first page); called on the EDT. */
+    public static void setAnimalSource(Supplier<List<org.example.Tier>> source) {
+        animalSource = source;
+    }
+
+    /* ---------- save ---------- */
+
+    /**
+     * Writes the current state. Parts that were not loaded in this session (tab never opened,
+     * cache empty) are taken over from the previous snapshot. Call on the EDT.
+     */
+    public static void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not write snapshot " + FILE + ": " + e);
+        }
+    }
+
+    public static void save() throws IOException {
+        if (loading) return;        // closed before the last snapshot was read: keep it as it is
+        LocalSnapshot previous = loaded;
+        Supplier<List<org.example.Tier>> src = animalSource;
+        List<org.example.Tier> animals = (src != null) ? src.get() : null;
+        if (animals == null) animals = (previous != null) ? previous.animals : List.of();
+
+        org.example.OccupancyCache occupancy = org.example.OccupancyCache.get();
+        List<org.example.Gehege> enclosures = occupancy.isLoaded() ? occupancy.snapshot()
+                : (previous != null) ? previous.enclosures : List.of();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(animals.size());
+            for (org.example.Tier t : animals) writeAnimal(out, t);
+            out.writeInt(enclosures.size());
+            for (org.example.Gehege g : enclosures) {
+                out.writeInt(g.getId());
+                writeString(out, g.getName());
+                out.writeInt(g.getCapacity());
+                out.writeInt(g.getOccupancy());
+            }
+        }
+
+        Files.createDirectories(FILE.toAbsolutePath().getParent());
+        Path part = FILE.resolveSibling(FILE.getFileName() + ".part");
+        Files.write(part, bytes.toByteArray());
+        Files.move(part, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /* ---------- format ---------- */
+
+    private static LocalSnapshot read(ByteBuffer buf) {
+        try {
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) return null;     // other format: ignore
+            long savedAt = buf.getLong();
+            int n = buf.getInt();
+            List<org.example.Tier> animals = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) animals.add(readAnimal(buf));
+            int m = buf.getInt();
+            List<org.example.Gehege> enclosures = new ArrayList<>(m);
+            for (int i = 0; i < m; i++) {
+                enclosures.add(new org.example.Gehege(buf.getInt(), readString(buf), buf.getInt(), buf.getInt()));
+            }
+            return new LocalSnapshot(savedAt, animals, enclosures);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IllegalStateException("truncated or corrupt", e);
+        }
+    }
+
+    /** One animal row; shared with WriteJournal. */
+    static void writeAnimal(DataOutputStream out, org.example.Tier t) throws IOException {
+        out.writeInt(t.getId());
+        writeString(out, t.getName());
+        writeString(out, t.getSpecies());
+        out.writeInt(t.getAge() == null ? NULL : t.getAge());
+        out.writeInt(t.getInclosureId() == null ? NULL : t.getInclosureId());
+        writeString(out, t.getSex());
+        writeString(out, t.getColor());
+        out.writeInt(t.getArrivalDate() == null ? NULL : (int) t.getArrivalDate().toEpochDay());
+        writeString(out, t.getHealthNote());
+        out.writeInt(t.getBirthDate() == null ? NULL : (int) t.getBirthDate().toEpochDay());
+    }
+
+    static org.example.Tier readAnimal(ByteBuffer buf) {
+        int id = buf.getInt();
+        String name = readString(buf);
+        String species = readString(buf);
+        Integer age = nullable(buf.getInt());
+        Integer enclosure = nullable(buf.getInt());
+        String sex = readString(buf);
+        String color = readString(buf);
+        LocalDate arrival = date(buf.getInt());
+        String note = readString(buf);
+        LocalDate birth = date(buf.getInt());
+        return new org.example.Tier(id, name, species, age, null, enclosure, sex, color, arrival, note, birth);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int len = buf.getInt();
+        if (len < 0) return null;
+        if (len > buf.remaining()) throw new BufferUnderflowException();
+        byte[] b = new byte[len];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static Integer nullable(int v) {
+        return (v == NULL) ? null : v;
+    }
+
+    private static LocalDate date(int epochDay) {
+        return (epochDay == NULL) ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
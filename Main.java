@@ -4,10 +4,12 @@ import javax.swing.*;
 
 public class Main {
     public static void main(String[] args) {
+        org.example.StartupTimer.markOnce("main");
         SwingUtilities.invokeLater(() -> {
             org.example.TierheimService service = new org.example.TierheimService();
             org.example.MainFrame frame = new org.example.MainFrame();
             frame.setVisible(true);
+            org.example.StartupTimer.markOnce("frame shown");
         });
     }
 }
\ No newline at end of file
@@ -2,49 +2,121 @@ package org.example;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.function.Supplier;
 
+/**
+ * Main window.
+ * - Only the Welcome tab is built up front; every other tab is built on first selection.
+ * - Meanwhile each data tab's first load is prefetched in parallel (Prefetch), so a tab built
+ *   later shows its data without waiting for the database.
+ * - The local snapshot of the last session is read ahead with them and written again on close.
+ * - Startup phases go to StartupTimer (Diagnostics tab / stderr).
+ */
 public class MainFrame extends JFrame {
 
     private final JTabbedPane tabs = new JTabbedPane();
+    private boolean painted;
+    private boolean prefetched;
 
     public MainFrame() {
         super("Tierheim Verwaltung");
+        org.example.StartupTimer.markOnce("frame construction");
 
         setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        org.example.EdtWatchdog.get().start();      // stalls -> Diagnostics tab + ~/.tierheim/logs
         setContentPane(tabs);
 
-        // --- Create panels (no args)
-        org.example.GreetingPanel greetingPanel = new org.example.GreetingPanel();   // 👈 Begrüßung
-        org.example.AnimalsPanel animalsPanel = new org.example.AnimalsPanel();
-        org.example.OpeningHoursPanel openingHoursPanel = new org.example.OpeningHoursPanel();
-        org.example.FeedingPlanPanel feedingPlanPanel = new org.example.FeedingPlanPanel();
-
-        // --- Add tabs
-        tabs.addTab("Welcome", greetingPanel);   // 👈 first tab
-        tabs.addTab("Animals", animalsPanel);
-        tabs.addTab("Opening hours", openingHoursPanel);
-        tabs.addTab("Feeding plan (today)", feedingPlanPanel);
-
-        // --- Optional: reload feeding plan each time tab is selected
-        /*
-        tabs.addChangeListener(e -> {
-            if (tabs.getSelectedComponent() == feedingPlanPanel) {
-                feedingPlanPanel.reloadFromDb();
+        org.example.WriteJournal.get();     // replays offline writes left from the last session (file read off the EDT)
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override public void windowClosing(java.awt.event.WindowEvent e) {
+                org.example.LocalSnapshot.saveQuietly();
             }
         });
-        */
+
+        // --- Read ahead what the data tabs show first (in parallel, off the EDT); the last
+        //     session's snapshot first, so tabs can render before the database answers
+        org.example.LocalSnapshot.prefetch();
+        org.example.AnimalsPanel.prefetch();
+        org.example.EnclosuresPanel.prefetch();
+        org.example.OpeningHoursPanel.prefetch();
+        org.example.FeedingPlanPanel.prefetch();
+        org.example.StatisticsPanel.prefetch();
+        org.example.Prefetch.afterAll(() -> SwingUtilities.invokeLater(this::prefetchDone));
+
+        // --- Add tabs; all but the first are built when first selected
+        tabs.addTab("Welcome", new org.example.GreetingPanel());   // 👈 first tab
+        addLazyTab("Animals", org.example.AnimalsPanel::new);
+        addLazyTab("Enclosures", org.example.EnclosuresPanel::new);
+        addLazyTab("Opening hours", org.example.OpeningHoursPanel::new);
+        addLazyTab("Feeding plan (today)", org.example.FeedingPlanPanel::new);
+        addLazyTab("Statistics", org.example.StatisticsPanel::new);
+        addLazyTab("Diagnostics", org.example.DiagnosticsPanel::new);
+        tabs.addChangeListener(e -> buildSelectedTab());
 
         // --- Window size & position
         setPreferredSize(new Dimension(900, 600));
         pack();
         setLocationRelativeTo(null);
+        org.example.StartupTimer.markOnce("frame constructed");
+    }
+
+    /* ---------- lazy tabs ---------- */
+
+    /** Placeholder that builds the real panel the first time its tab is selected. */
+    private static final class LazyTab extends JPanel {
+        private final String title;
+        private Supplier<? extends JComponent> factory;      // null once built
+
+        LazyTab(String title, Supplier<? extends JComponent> factory) {
+            super(new BorderLayout());
+            this.title = title;
+            this.factory = factory;
+        }
+
+        void build() {
+            if (factory == null) return;
+            long t0 = System.nanoTime();
+            add(factory.get(), BorderLayout.CENTER);
+            factory = null;
+            revalidate();
+            org.example.StartupTimer.mark("tab " + title + " built", System.nanoTime() - t0);
+        }
+    }
+
+    private void addLazyTab(String title, Supplier<? extends JComponent> factory) {
+        tabs.addTab(title, new LazyTab(title, factory));
+    }
+
+    private void buildSelectedTab() {
+        if (tabs.getSelectedComponent() instanceof LazyTab lazy) lazy.build();
+    }
+
+    /* ---------- startup timings ---------- */
+
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        if (!painted) {
+            painted = true;
+            org.example.StartupTimer.markOnce("first paint");
+            if (prefetched) org.example.StartupTimer.markOnce("interactive");
+        }
+    }
+
+    private void prefetchDone() {
+        org.example.StartupTimer.markOnce("prefetch complete");
+        prefetched = true;
+        // interactive = painted, the EDT is free and every tab's first data is in memory
+        if (painted) org.example.StartupTimer.markOnce("interactive");
     }
 
     // Local launcher (App.java will also work)
     public static void main(String[] args) {
+        org.example.StartupTimer.markOnce("main");
         SwingUtilities.invokeLater(() -> {
             MainFrame frame = new MainFrame();
             frame.setVisible(true);
+            org.example.StartupTimer.markOnce("frame shown");
         });
     }
-}
\ No newline at end of file
+}
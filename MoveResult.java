@@ -0,0 +1,37 @@
+package org.example;
+
+import java.util.List;
+
+/** Outcome of TierheimService.moveToEnclosure. */
+public class MoveResult {
+
+    public enum Status { MOVED, ENCLOSURE_FULL, ENCLOSURE_NOT_FOUND }
+
+    private final Status status;
+    private final List<Integer> movedIds;    // animals whose enclosure changed, empty unless MOVED
+    private final int needed;                // animals that had to move in (already there ones don't count)
+    private final int free;                  // free slots at check time
+
+    MoveResult(Status status, List<Integer> movedIds, int needed, int free) {
+        this.status = status;
+        this.movedIds = movedIds;
+        this.needed = needed;
+        this.free = free;
+    }
+
+    public Status getStatus() { return status; }
+    public boolean isMoved() { return status == Status.MOVED; }
+    public List<Integer> getMovedIds() { return movedIds; }
+    public int getNeeded() { return needed; }
+    public int getFree() { return free; }
+
+    /** User facing text. */
+    public String getMessage(int enclosureId) {
+        return switch (status) {
+            case MOVED -> movedIds.size() + " animal(s) moved to enclosure " + enclosureId;
+            case ENCLOSURE_FULL -> "Enclosure " + enclosureId + " has only " + free + " free place(s), "
+                    + needed + " needed. Nothing was moved.";
+            case ENCLOSURE_NOT_FOUND -> "Enclosure " + enclosureId + " not found.";
+        };
+    }
+}
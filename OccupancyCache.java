@@ -0,0 +1,144 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory capacity/occupancy per enclosure (id -> Gehege), shared by the whole app.
+ * - Loaded with one query (enclosures LEFT JOIN animals GROUP BY).
+ * - Local inserts/deletes update it right away (write-through from TierheimService).
+ * - Reloaded in the background every REFRESH_SECONDS to pick up other clients' changes.
+ * - Listeners get only what changed (the Enclosures tab patches its rows with it).
+ * Only used for quick answers in the UI; the insert itself still checks capacity in the DB.
+ */
+public final class OccupancyCache {
+
+    private static final long REFRESH_SECONDS = Long.getLong("tierheim.occupancy.refreshSeconds", 60);
+
+    private static final class Holder {
+        static final OccupancyCache INSTANCE = new OccupancyCache(new org.example.TierheimService());
+    }
+
+    public static OccupancyCache get() {
+        return Holder.INSTANCE;
+    }
+
+    /** Called on the thread that changed the cache (not necessarily the EDT). */
+    public interface Listener {
+        /** changed: new or updated enclosures; removedIds: enclosures that no longer exist. */
+        void occupancyChanged(List<org.example.Gehege> changed, Set<Integer> removedIds);
+    }
+
+    private final org.example.TierheimService service;
+    private final Map<Integer, org.example.Gehege> byId = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded;
+
+    private OccupancyCache(org.example.TierheimService service) {
+        this.service = service;
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "occupancy-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::refreshQuietly, 0, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /* ---------- reads ---------- */
+
+    /** Cached enclosure, or null if unknown (not loaded yet or does not exist). */
+    public org.example.Gehege find(int enclosureId) {
+        return byId.get(enclosureId);
+    }
+
+    public boolean isLoaded() { return loaded; }
+
+    /** All cached enclosures, ordered by id. */
+    public List<org.example.Gehege> snapshot() {
+        List<org.example.Gehege> list = new ArrayList<>(byId.values());
+        list.sort(Comparator.comparingInt(org.example.Gehege::getId));
+        return list;
+    }
+
+    public void addListener(Listener l) { listeners.add(l); }
+
+    public void removeListener(Listener l) { listeners.remove(l); }
+
+    private void fire(List<org.example.Gehege> changed, Set<Integer> removedIds) {
+        if (changed.isEmpty() && removedIds.isEmpty()) return;
+        for (Listener l : listeners) l.occupancyChanged(changed, removedIds);
+    }
+
+    /* ---------- write-through ---------- */
+
+    public void animalAdded(Integer enclosureId) { adjust(enclosureId, +1); }
+
+    public void animalRemoved(Integer enclosureId) { adjust(enclosureId, -1); }
+
+    /** Takes fresh numbers for one enclosure (e.g. returned by a checked insert). */
+    public void put(org.example.Gehege g) {
+        org.example.Gehege now = byId.merge(g.getId(), g, (old, neu) ->
+                new org.example.Gehege(old.getId(), neu.getName() != null ? neu.getName() : old.getName(),
+                        neu.getCapacity(), neu.getOccupancy()));
+        fire(List.of(now), Set.of());
+    }
+
+    private void adjust(Integer enclosureId, int delta) {
+        if (enclosureId == null) return;
+        org.example.Gehege now = byId.computeIfPresent(enclosureId, (id, g) ->
+                new org.example.Gehege(id, g.getName(), g.getCapacity(), Math.max(0, g.getOccupancy() + delta)));
+        if (now != null) fire(List.of(now), Set.of());
+    }
+
+    /* ---------- loading ---------- */
+
+    public synchronized void refresh() throws SQLException {
+        List<org.example.Gehege> all = service.findAllEnclosures();
+        Map<Integer, org.example.Gehege> fresh = new HashMap<>();
+        for (org.example.Gehege g : all) fresh.put(g.getId(), g);
+
+        // tell listeners only about the differences
+        Set<Integer> removed = new HashSet<>(byId.keySet());
+        removed.removeAll(fresh.keySet());
+        List<org.example.Gehege> changed = new ArrayList<>();
+        for (org.example.Gehege g : all) {
+            if (!sameNumbers(byId.get(g.getId()), g)) changed.add(g);
+        }
+        byId.keySet().removeAll(removed);
+        byId.putAll(fresh);
+        loaded = true;
+        fire(changed, removed);
+    }
+
+    private static boolean sameNumbers(org.example.Gehege a, org.example.Gehege b) {
+        return a != null && a.getCapacity() == b.getCapacity() && a.getOccupancy() == b.getOccupancy()
+                && Objects.equals(a.getName(), b.getName());
+    }
+
+    /** Numbers from the local snapshot, used until the first refresh (ignored once loaded). */
+    public synchronized void restore(List<org.example.Gehege> saved) {
+        if (loaded || saved.isEmpty()) return;
+        for (org.example.Gehege g : saved) byId.put(g.getId(), g);
+        loaded = true;
+        fire(new ArrayList<>(saved), Set.of());
+    }
+
+    /** Reload without waiting, e.g. after a delete whose enclosure is not known. */
+    public void refreshAsync() {
+        org.example.DbExecutor.submit(() -> { refreshQuietly(); return null; });
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception ex) {
+            // keep the old numbers; next run will try again
+            System.err.println("Occupancy refresh failed: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Opening hours for one calendar date that replace the weekday's regular hours
+ * (public holiday, special event, shortened day).
+ */
+public class OpeningException {
+
+    private final LocalDate date;
+    private final boolean open;
+    private final LocalTime openTime;
+    private final LocalTime closeTime;
+    private final String note;
+
+    public OpeningException(LocalDate date, boolean open, LocalTime openTime, LocalTime closeTime, String note) {
+        this.date = date;
+        this.open = open;
+        this.openTime = openTime;
+        this.closeTime = closeTime;
+        this.note = note;
+    }
+
+    public LocalDate getDate() { return date; }
+    public boolean isOpen() { return open; }
+    public LocalTime getOpenTime() { return openTime; }
+    public LocalTime getCloseTime() { return closeTime; }
+    public String getNote() { return note; }
+
+    @Override
+    public String toString() {
+        return date + (open ? " " + openTime + "-" + closeTime : " closed") + (note != null ? " (" + note + ")" : "");
+    }
+}
@@ -0,0 +1,78 @@
+package org.example;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holidays and other dates with special opening hours (table opening_exceptions).
+ * The table comes from sql/migrations/003_opening_exceptions.sql (EmbeddedSchema for embedded storage).
+ */
+public class OpeningExceptionDao {
+
+    protected Connection getConnection() throws SQLException {
+        return org.example.Database.getConnection();
+    }
+
+    /** Exceptions on or after the given date, in date order. */
+    public List<org.example.OpeningException> findFrom(LocalDate from) throws SQLException {
+        String sql = """
+            SELECT exception_date, is_open, open_time, close_time, note
+            FROM opening_exceptions
+            WHERE exception_date >= ?
+            ORDER BY exception_date
+        """;
+        List<org.example.OpeningException> list = new ArrayList<>();
+        try (Connection c = getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(from));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Time open = rs.getTime("open_time");
+                    Time close = rs.getTime("close_time");
+                    list.add(new org.example.OpeningException(rs.getDate("exception_date").toLocalDate(),
+                            rs.getBoolean("is_open"),
+                            open == null ? null : open.toLocalTime(),
+                            close == null ? null : close.toLocalTime(),
+                            rs.getString("note")));
+                }
+            }
+        }
+        return list;
+    }
+
+    /** Inserts or replaces the exception for its date (delete + insert, the same on MySQL and H2). */
+    public void upsert(org.example.OpeningException e) throws SQLException {
+        try (Connection c = getConnection()) {
+            boolean auto = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try (PreparedStatement del = c.prepareStatement("DELETE FROM opening_exceptions WHERE exception_date = ?");
+                 PreparedStatement ins = c.prepareStatement(
+                         "INSERT INTO opening_exceptions (exception_date, is_open, open_time, close_time, note) VALUES (?, ?, ?, ?, ?)")) {
+                del.setDate(1, Date.valueOf(e.getDate()));
+                del.executeUpdate();
+                ins.setDate(1, Date.valueOf(e.getDate()));
+                ins.setBoolean(2, e.isOpen());
+                ins.setTime(3, e.getOpenTime() == null ? null : Time.valueOf(e.getOpenTime()));
+                ins.setTime(4, e.getCloseTime() == null ? null : Time.valueOf(e.getCloseTime()));
+                ins.setString(5, e.getNote());
+                ins.executeUpdate();
+                c.commit();
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
+            } finally {
+                c.setAutoCommit(auto);
+            }
+        }
+    }
+
+    public void delete(LocalDate date) throws SQLException {
+        try (Connection c = getConnection();
+             PreparedStatement ps = c.prepareStatement("DELETE FROM opening_exceptions WHERE exception_date = ?")) {
+            ps.setDate(1, Date.valueOf(date));
+            ps.executeUpdate();
+        }
+    }
+}
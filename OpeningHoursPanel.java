@@ -3,15 +3,30 @@ package org.example;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
 
+/**
+ * Opening hours tab: weekly hours, holidays/exceptions and today's status.
+ * Everything is shown from the shared OpeningSchedule; the database is only read on the first
+ * show and on "Refresh". Edits are saved and then applied to the schedule in memory.
+ */
 public class OpeningHoursPanel extends JPanel {
 
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("EEE dd.MM.", Locale.ENGLISH);
+
     private final JLabel todayLabel = new JLabel("Today: ");
+    private final JLabel nowLabel = new JLabel(" ");
     private final JTable table = new JTable();
+    private final JTable exceptionTable = new JTable();
     private final org.example.OpeningHoursDao dao = new org.example.OpeningHoursDao();
+    private final org.example.OpeningExceptionDao exceptionDao = new org.example.OpeningExceptionDao();
+    private final Timer clock = new Timer(30_000, e -> showNow(org.example.OpeningSchedule.get()));
 
     public OpeningHoursPanel() {
         setLayout(new BorderLayout(8,8));
@@ -21,6 +36,7 @@ public class OpeningHoursPanel extends JPanel {
         JButton refresh = new JButton("Refresh");
         JButton edit = new JButton("Edit selected");
         top.add(todayLabel);
+        top.add(nowLabel);
         top.add(refresh);
         top.add(edit);
         add(top, BorderLayout.NORTH);
@@ -32,44 +48,114 @@ public class OpeningHoursPanel extends JPanel {
             @Override public boolean isCellEditable(int row, int column) { return false; }
         });
         table.setRowHeight(22);
-        add(new JScrollPane(table), BorderLayout.CENTER);
 
-        refresh.addActionListener(e -> loadData());
+        // Bottom of center: holidays / exceptions
+        exceptionTable.setModel(new DefaultTableModel(new Object[][]{}, new String[]{
+                "Date", "Status", "Opens", "Closes", "Note"
+        }) {
+            @Override public boolean isCellEditable(int row, int column) { return false; }
+        });
+        exceptionTable.setRowHeight(22);
+        JButton addException = new JButton("Add exception…");
+        JButton removeException = new JButton("Remove exception");
+        JPanel exButtons = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        exButtons.add(addException);
+        exButtons.add(removeException);
+        JPanel exPanel = new JPanel(new BorderLayout(4, 4));
+        exPanel.setBorder(BorderFactory.createTitledBorder("Holidays and exceptions (override the weekday)"));
+        exPanel.add(new JScrollPane(exceptionTable), BorderLayout.CENTER);
+        exPanel.add(exButtons, BorderLayout.SOUTH);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(table), exPanel);
+        split.setResizeWeight(0.6);
+        add(split, BorderLayout.CENTER);
+
+        refresh.addActionListener(e -> loadData(true));
         edit.addActionListener(e -> onEdit());
+        addException.addActionListener(e -> onAddException());
+        removeException.addActionListener(e -> onRemoveException());
 
-        loadData(); // initial
+        // "open now / closes in" only needs updating while visible
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & java.awt.event.HierarchyEvent.SHOWING_CHANGED) == 0) return;
+            if (isShowing()) clock.start();
+            else clock.stop();
+        });
+
+        loadData(false); // initial
     }
 
-    private void loadData() {
-        try {
-            List<org.example.OpeningHours> list = dao.findAll();
-            DefaultTableModel m = (DefaultTableModel) table.getModel();
-            m.setRowCount(0);
-            for (org.example.OpeningHours oh : list) {
-                m.addRow(new Object[]{
-                        oh.getWeekday() + " - " + weekdayName(oh.getWeekday()),
-                        oh.isOpen() ? "Open" : "Closed",
-                        oh.isOpen() && oh.getOpenTime() != null ? oh.getOpenTime().toString().substring(0,5) : "-",
-                        oh.isOpen() && oh.getCloseTime() != null ? oh.getCloseTime().toString().substring(0,5) : "-",
-                        oh.getNote()
-                });
-            }
-
-            // today's hours
-            int todayIso = DayOfWeek.from(LocalDate.now()).getValue(); // 1..7
-            org.example.OpeningHours today = dao.findByWeekday(todayIso);
-            if (today == null) {
-                todayLabel.setText("Today: (no data)");
-            } else if (!today.isOpen()) {
-                todayLabel.setText("Today: Closed" + (today.getNote() != null ? " — " + today.getNote() : ""));
-            } else {
-                String open = today.getOpenTime() == null ? "?" : today.getOpenTime().toString().substring(0,5);
-                String close = today.getCloseTime() == null ? "?" : today.getCloseTime().toString().substring(0,5);
-                todayLabel.setText("Today: " + open + "–" + close + (today.getNote() != null ? " — " + today.getNote() : ""));
-            }
-        } catch (Exception ex) {
+    private static final String PREFETCH_KEY = "openingHours";
+
+    /** Starts loading the schedule at startup, before the tab is built. */
+    public static void prefetch() {
+        org.example.Prefetch.start(PREFETCH_KEY, org.example.OpeningSchedule::load);
+    }
+
+    /** Shows the cached schedule; reads the database only on the first call or when asked to. */
+    private void loadData(boolean fromDb) {
+        if (!fromDb && org.example.OpeningSchedule.isLoaded()) {
+            showSchedule(org.example.OpeningSchedule.get());
+            return;
+        }
+        todayLabel.setText("Today: loading…");
+        org.example.DbExecutor.run(this, "load",
+                () -> fromDb ? org.example.OpeningSchedule.load()
+                        : org.example.Prefetch.take(PREFETCH_KEY, org.example.OpeningSchedule::load),
+                this::showSchedule, ex -> {
             ex.printStackTrace();
+            todayLabel.setText("Today: (no data)");
             JOptionPane.showMessageDialog(this, "Load opening hours failed: " + ex.getMessage());
+        });
+    }
+
+    private void showSchedule(org.example.OpeningSchedule schedule) {
+        DefaultTableModel m = (DefaultTableModel) table.getModel();
+        m.setRowCount(0);
+        for (org.example.OpeningHours oh : schedule.getWeek()) {
+            m.addRow(new Object[]{
+                    oh.getWeekday() + " - " + weekdayName(oh.getWeekday()),
+                    oh.isOpen() ? "Open" : "Closed",
+                    oh.isOpen() && oh.getOpenTime() != null ? oh.getOpenTime().toString().substring(0,5) : "-",
+                    oh.isOpen() && oh.getCloseTime() != null ? oh.getCloseTime().toString().substring(0,5) : "-",
+                    oh.getNote()
+            });
+        }
+
+        DefaultTableModel em = (DefaultTableModel) exceptionTable.getModel();
+        em.setRowCount(0);
+        for (org.example.OpeningException e : schedule.getExceptions()) {
+            em.addRow(new Object[]{
+                    e.getDate(),
+                    e.isOpen() ? "Open" : "Closed",
+                    e.isOpen() && e.getOpenTime() != null ? e.getOpenTime().format(TIME) : "-",
+                    e.isOpen() && e.getCloseTime() != null ? e.getCloseTime().format(TIME) : "-",
+                    e.getNote()
+            });
+        }
+
+        // today's hours (an exception wins over the weekday)
+        LocalDate today = LocalDate.now();
+        if (schedule.getWeekday(today.getDayOfWeek().getValue()) == null && !schedule.isExceptionDay(today)) {
+            todayLabel.setText("Today: (no data)");
+        } else {
+            todayLabel.setText("Today: " + schedule.hoursOn(today)
+                    + (schedule.isExceptionDay(today) ? " (exception)" : ""));
+        }
+        showNow(schedule);
+    }
+
+    /** "Open, closes in 2 h 15 min" / "Closed, opens Tue 09:00" - from memory only. */
+    private void showNow(org.example.OpeningSchedule schedule) {
+        if (!org.example.OpeningSchedule.isLoaded()) return;
+        LocalDateTime now = LocalDateTime.now();
+        Duration left = schedule.timeUntilClose(now);
+        if (left != null) {
+            nowLabel.setText("| Open now, closes in " + left.toHours() + " h " + left.toMinutesPart() + " min");
+        } else {
+            LocalDateTime next = schedule.nextOpening(now);
+            nowLabel.setText("| Closed now" + (next == null ? ""
+                    : ", opens " + next.format(DAY) + " " + next.toLocalTime().format(TIME)));
         }
     }
 
@@ -85,22 +171,88 @@ public class OpeningHoursPanel extends JPanel {
         int dash = firstCol.indexOf(' ');
         int weekday = Integer.parseInt(dash > 0 ? firstCol.substring(0, dash) : firstCol);
 
+        editHours(org.example.OpeningSchedule.get().getWeekday(weekday));      // row as shown, no query
+    }
+
+    private void editHours(org.example.OpeningHours current) {
+        org.example.OpeningHours updated;
         try {
-            org.example.OpeningHours current = dao.findByWeekday(weekday);
             org.example.OpeningHoursEditDialog dlg = new org.example.OpeningHoursEditDialog(SwingUtilities.getWindowAncestor(this), current);
             dlg.setVisible(true);
-            if (dlg.isOk()) {
-                org.example.OpeningHours updated = dlg.getValue();
-                dao.upsert(updated);
-                loadData();
-                JOptionPane.showMessageDialog(this, "Saved hours for " + weekdayName(updated.getWeekday()));
-            }
+            if (!dlg.isOk()) return;
+            updated = dlg.getValue();
         } catch (IllegalArgumentException ex) {
             JOptionPane.showMessageDialog(this, "Invalid time format. Use HH:mm (e.g., 09:00).");
-        } catch (Exception ex) {
+            return;
+        }
+
+        org.example.DbExecutor.execute(this, () -> dao.upsert(updated), () -> {
+            // the schedule is rebuilt from the saved row, not re-read
+            org.example.OpeningSchedule.install(org.example.OpeningSchedule.get().withWeekday(updated));
+            showSchedule(org.example.OpeningSchedule.get());
+            JOptionPane.showMessageDialog(this, "Saved hours for " + weekdayName(updated.getWeekday()));
+        }, ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Save failed: " + ex.getMessage());
+        });
+    }
+
+    /* ---------- exceptions ---------- */
+
+    private void onAddException() {
+        JTextField date = new JTextField(LocalDate.now().toString(), 10);
+        JCheckBox open = new JCheckBox("Open");
+        JTextField opens = new JTextField("10:00", 5);
+        JTextField closes = new JTextField("14:00", 5);
+        JTextField note = new JTextField(20);
+        JPanel form = new JPanel(new GridLayout(0, 2, 6, 6));
+        form.add(new JLabel("Date (yyyy-MM-dd):")); form.add(date);
+        form.add(new JLabel("")); form.add(open);
+        form.add(new JLabel("Opens (HH:mm):")); form.add(opens);
+        form.add(new JLabel("Closes (HH:mm):")); form.add(closes);
+        form.add(new JLabel("Note:")); form.add(note);
+        if (JOptionPane.showConfirmDialog(this, form, "Add exception", JOptionPane.OK_CANCEL_OPTION)
+                != JOptionPane.OK_OPTION) return;
+
+        org.example.OpeningException e;
+        try {
+            e = new org.example.OpeningException(LocalDate.parse(date.getText().trim()), open.isSelected(),
+                    open.isSelected() ? LocalTime.parse(opens.getText().trim()) : null,
+                    open.isSelected() ? LocalTime.parse(closes.getText().trim()) : null,
+                    note.getText().isBlank() ? null : note.getText().trim());
+        } catch (java.time.format.DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Invalid date or time. Use yyyy-MM-dd and HH:mm.");
+            return;
+        }
+        // 00:00 is "until midnight" (see OpeningSchedule); any other close must come after the opening
+        if (e.isOpen() && !e.getCloseTime().equals(LocalTime.MIDNIGHT) && !e.getCloseTime().isAfter(e.getOpenTime())) {
+            JOptionPane.showMessageDialog(this, "Closing time must be after the opening time (00:00 = midnight).");
+            return;
+        }
+
+        org.example.DbExecutor.execute(this, () -> exceptionDao.upsert(e), () -> {
+            org.example.OpeningSchedule.install(org.example.OpeningSchedule.get().withException(e));
+            showSchedule(org.example.OpeningSchedule.get());
+        }, ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Save failed: " + ex.getMessage());
+        });
+    }
+
+    private void onRemoveException() {
+        int row = exceptionTable.getSelectedRow();
+        if (row < 0) {
+            JOptionPane.showMessageDialog(this, "Select an exception first.");
+            return;
         }
+        LocalDate date = (LocalDate) exceptionTable.getValueAt(row, 0);
+        org.example.DbExecutor.execute(this, () -> exceptionDao.delete(date), () -> {
+            org.example.OpeningSchedule.install(org.example.OpeningSchedule.get().withoutException(date));
+            showSchedule(org.example.OpeningSchedule.get());
+        }, ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Delete failed: " + ex.getMessage());
+        });
     }
 
     private String weekdayName(int iso) {
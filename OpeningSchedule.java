@@ -0,0 +1,206 @@
+package org.example;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Immutable weekly opening schedule plus date exceptions (holidays), built once from
+ * OpeningHours / OpeningException and shared app-wide via get().
+ * - isOpenAt, hoursOn, timeUntilClose: one array or hash lookup, no database access.
+ * - nextOpening looks at the following days until one is open (at most a week plus the
+ *   number of closed exceptions in between).
+ * - Hours are [opens, closes) on the same day; a close time of 00:00 or before the opening
+ *   time means "until midnight". Open days without times count as open all day.
+ * - After an edit, with...() gives a new schedule and install() publishes it; the database
+ *   is read again only by load() (start and "Refresh").
+ */
+public final class OpeningSchedule {
+
+    private static final int MIDNIGHT = 24 * 60;
+    private static final int MAX_SEARCH_DAYS = 400;
+
+    /** Opening hours of one day as minutes since midnight; closed if opens < 0. */
+    public static final class Hours {
+        static final Hours CLOSED = new Hours(-1, -1, null);
+
+        private final int opens;
+        private final int closes;
+        private final String note;
+
+        Hours(int opens, int closes, String note) {
+            this.opens = opens;
+            this.closes = closes;
+            this.note = note;
+        }
+
+        static Hours of(boolean open, LocalTime from, LocalTime to, String note) {
+            if (!open) return (note == null) ? CLOSED : new Hours(-1, -1, note);
+            int o = (from == null) ? 0 : from.toSecondOfDay() / 60;
+            int c = (to == null) ? MIDNIGHT : to.toSecondOfDay() / 60;
+            if (c <= o) c = MIDNIGHT;
+            return new Hours(o, c, note);
+        }
+
+        public boolean isOpen() { return opens >= 0; }
+        public LocalTime getOpens() { return isOpen() ? LocalTime.ofSecondOfDay(opens * 60L) : null; }
+        /** null when closed; LocalTime.MIDNIGHT for "until midnight". */
+        public LocalTime getCloses() { return isOpen() ? LocalTime.ofSecondOfDay((closes % MIDNIGHT) * 60L) : null; }
+        public String getNote() { return note; }
+
+        boolean contains(int minute) {
+            return opens >= 0 && minute >= opens && minute < closes;
+        }
+
+        @Override
+        public String toString() {
+            String hours = isOpen() ? String.format("%02d:%02d–%02d:%02d", opens / 60, opens % 60,
+                    (closes / 60) % 24, closes % 60) : "Closed";
+            return (note != null) ? hours + " — " + note : hours;
+        }
+    }
+
+    private static final OpeningSchedule EMPTY = new OpeningSchedule(List.of(), List.of());
+    private static volatile OpeningSchedule current = EMPTY;
+    private static volatile boolean loaded;
+
+    private final Hours[] weekdays = new Hours[8];                      // index 1..7 (ISO)
+    private final List<org.example.OpeningHours> week;                  // as read, by weekday
+    private final Map<LocalDate, Hours> exceptions;
+    private final List<org.example.OpeningException> exceptionList;     // by date
+
+    private OpeningSchedule(List<org.example.OpeningHours> week, List<org.example.OpeningException> exceptions) {
+        Arrays.fill(weekdays, Hours.CLOSED);
+        List<org.example.OpeningHours> sortedWeek = new ArrayList<>(week);
+        sortedWeek.sort(Comparator.comparingInt(org.example.OpeningHours::getWeekday));
+        for (org.example.OpeningHours oh : sortedWeek) {
+            if (oh.getWeekday() < 1 || oh.getWeekday() > 7) continue;
+            weekdays[oh.getWeekday()] = Hours.of(oh.isOpen(),
+                    oh.getOpenTime() == null ? null : oh.getOpenTime().toLocalTime(),
+                    oh.getCloseTime() == null ? null : oh.getCloseTime().toLocalTime(),
+                    oh.getNote());
+        }
+        this.week = List.copyOf(sortedWeek);
+
+        Map<LocalDate, org.example.OpeningException> byDate = new TreeMap<>();
+        for (org.example.OpeningException e : exceptions) byDate.put(e.getDate(), e);
+        Map<LocalDate, Hours> map = new HashMap<>();
+        for (org.example.OpeningException e : byDate.values()) {
+            map.put(e.getDate(), Hours.of(e.isOpen(), e.getOpenTime(), e.getCloseTime(), e.getNote()));
+        }
+        this.exceptions = Map.copyOf(map);
+        this.exceptionList = List.copyOf(byDate.values());
+    }
+
+    /* ---------- shared instance ---------- */
+
+    /** The current schedule (empty, i.e. always closed, until the first load()). */
+    public static OpeningSchedule get() {
+        return current;
+    }
+
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    /** Reads weekly hours and upcoming exceptions and installs the result. Not on the EDT. */
+    public static OpeningSchedule load() throws SQLException {
+        List<org.example.OpeningHours> week = new org.example.OpeningHoursDao().findAll();
+        List<org.example.OpeningException> ex = new org.example.OpeningExceptionDao().findFrom(LocalDate.now());
+        OpeningSchedule s = new OpeningSchedule(week, ex);
+        install(s);
+        return s;
+    }
+
+    public static void install(OpeningSchedule s) {
+        current = s;
+        loaded = true;
+    }
+
+    /* ---------- derived schedules (after edits) ---------- */
+
+    /** This schedule with one weekday replaced, e.g. after OpeningHoursDao.upsert. */
+    public OpeningSchedule withWeekday(org.example.OpeningHours hours) {
+        List<org.example.OpeningHours> w = new ArrayList<>();
+        for (org.example.OpeningHours oh : week) {
+            if (oh.getWeekday() != hours.getWeekday()) w.add(oh);
+        }
+        w.add(hours);
+        return new OpeningSchedule(w, exceptionList);
+    }
+
+    public OpeningSchedule withException(org.example.OpeningException e) {
+        List<org.example.OpeningException> list = new ArrayList<>(exceptionList);
+        list.removeIf(x -> x.getDate().equals(e.getDate()));
+        list.add(e);
+        return new OpeningSchedule(week, list);
+    }
+
+    public OpeningSchedule withoutException(LocalDate date) {
+        List<org.example.OpeningException> list = new ArrayList<>(exceptionList);
+        list.removeIf(x -> x.getDate().equals(date));
+        return new OpeningSchedule(week, list);
+    }
+
+    /* ---------- queries ---------- */
+
+    /** Hours that apply on a date: its exception if there is one, else the weekday's. */
+    public Hours hoursOn(LocalDate date) {
+        Hours h = exceptions.get(date);
+        return (h != null) ? h : weekdays[date.getDayOfWeek().getValue()];
+    }
+
+    public boolean isExceptionDay(LocalDate date) {
+        return exceptions.containsKey(date);
+    }
+
+    public boolean isOpenAt(LocalDateTime t) {
+        return hoursOn(t.toLocalDate()).contains(minuteOf(t));
+    }
+
+    /** Time left until closing, or null if closed at t. */
+    public Duration timeUntilClose(LocalDateTime t) {
+        Hours h = hoursOn(t.toLocalDate());
+        if (!h.contains(minuteOf(t))) return null;
+        return Duration.between(t, t.toLocalDate().atStartOfDay().plusMinutes(h.closes));
+    }
+
+    /** Start of the next opening after t (not the one t is in), or null if none within MAX_SEARCH_DAYS (400) days. */
+    public LocalDateTime nextOpening(LocalDateTime t) {
+        LocalDate day = t.toLocalDate();
+        Hours today = hoursOn(day);
+        if (today.isOpen() && minuteOf(t) < today.opens) {
+            return day.atStartOfDay().plusMinutes(today.opens);
+        }
+        for (int i = 1; i <= MAX_SEARCH_DAYS; i++) {
+            LocalDate d = day.plusDays(i);
+            Hours h = hoursOn(d);
+            if (h.isOpen()) return d.atStartOfDay().plusMinutes(h.opens);
+        }
+        return null;
+    }
+
+    /** Weekly rows as read from the database, Monday first (for the table and the edit dialog). */
+    public List<org.example.OpeningHours> getWeek() {
+        return week;
+    }
+
+    /** The stored row of a weekday, or null. */
+    public org.example.OpeningHours getWeekday(int isoWeekday) {
+        for (org.example.OpeningHours oh : week) {
+            if (oh.getWeekday() == isoWeekday) return oh;
+        }
+        return null;
+    }
+
+    public List<org.example.OpeningException> getExceptions() {
+        return exceptionList;
+    }
+
+    private static int minuteOf(LocalDateTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+}
@@ -0,0 +1,62 @@
+package org.example;
+
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Data read ahead in the background at startup, taken over by the panel that needs it.
+ * - start(key, task) runs the task on the DbExecutor pool (several keys run in parallel).
+ * - take(key, fallback) hands the result to the first caller and forgets it; if there was no
+ *   prefetch, it was already taken or it failed, the fallback reads fresh data instead.
+ * take() blocks until the prefetch is done, so call it from a background task, not the EDT.
+ */
+public final class Prefetch {
+
+    private static final Map<String, Future<?>> PENDING = new ConcurrentHashMap<>();
+    private static final java.util.List<Future<?>> STARTED = new java.util.ArrayList<>();   // guarded by itself
+
+    private Prefetch() {}
+
+    public static <T> void start(String key, Callable<T> task) {
+        Future<T> f = org.example.DbExecutor.submit(() -> {
+            long t0 = System.nanoTime();
+            T result = task.call();
+            org.example.StartupTimer.mark("prefetch " + key + " done", System.nanoTime() - t0);
+            return result;
+        });
+        PENDING.put(key, f);
+        synchronized (STARTED) {
+            STARTED.add(f);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T take(String key, Callable<T> fallback) throws Exception {
+        Future<T> f = (Future<T>) PENDING.remove(key);
+        if (f != null) {
+            try {
+                return f.get();
+            } catch (ExecutionException e) {
+                // read again below; the error, if it persists, reaches the caller from there
+                System.err.println("Prefetch " + key + " failed: " + e.getCause());
+            }
+        }
+        return fallback.call();
+    }
+
+    /** Runs r on a background thread once every prefetch started so far has finished (or failed). */
+    public static void afterAll(Runnable r) {
+        java.util.List<Future<?>> started;
+        synchronized (STARTED) {
+            started = new java.util.ArrayList<>(STARTED);
+        }
+        Thread t = new Thread(() -> {
+            for (Future<?> f : started) {
+                try { f.get(); } catch (Exception ignored) { /* reported by take() */ }
+            }
+            r.run();
+        }, "prefetch-wait");
+        t.setDaemon(true);
+        t.start();
+    }
+}
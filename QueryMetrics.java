@@ -0,0 +1,219 @@
+package org.example;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation query statistics for every DAO (TierheimService, FeedingPlanDao, OpeningHoursDao, ...).
+ * - Statements are instrumented by the connection pool (see InstrumentedJdbc), so DAOs need no changes.
+ * - An operation is the DAO method that prepared the statement, e.g. "TierheimService.findAll".
+ * - Calls, errors, latency percentiles, rows, connection-acquire time.
+ * - Queries slower than tierheim.slowQueryMs (default 200) go to a bounded slow-query log
+ *   with SQL text and bind values, and are printed to stderr.
+ * Exposed over JMX as org.example:type=QueryMetrics and in the Diagnostics tab.
+ */
+public final class QueryMetrics implements QueryMetricsMXBean {
+
+    static final boolean ENABLED = !"false".equals(System.getProperty("tierheim.metrics"));
+    private static final int SLOW_LOG_SIZE = 200;
+
+    private static final class Holder {
+        static final QueryMetrics INSTANCE = create();
+
+        private static QueryMetrics create() {
+            QueryMetrics m = new QueryMetrics();
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                        .registerMBean(m, new ObjectName("org.example:type=QueryMetrics"));
+            } catch (Exception e) {
+                // metrics still work in the Diagnostics tab
+                System.err.println("Could not register QueryMetrics MBean: " + e);
+            }
+            return m;
+        }
+    }
+
+    public static QueryMetrics get() {
+        return Holder.INSTANCE;
+    }
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private final LatencyHistogram acquire = new LatencyHistogram();
+    private final Deque<SlowQuery> slowLog = new ArrayDeque<>();    // newest first, guarded by itself
+    private final AtomicLong slowCount = new AtomicLong();
+    private volatile long slowThresholdMillis = Long.getLong("tierheim.slowQueryMs", 200);
+
+    private QueryMetrics() {}
+
+    private static final class Operation {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rows = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    /* ---------- recording ---------- */
+
+    /** Called by InstrumentedJdbc after each execution. binds may be null. */
+    void record(String operation, String sql, Map<Integer, Object> binds, long nanos, long rows, boolean failed) {
+        Operation op = operations.computeIfAbsent(operation, k -> new Operation());
+        op.latency.record(nanos);
+        op.rows.add(rows);
+        if (failed) op.errors.increment();
+
+        long millis = nanos / 1_000_000;
+        if (millis >= slowThresholdMillis) {
+            SlowQuery q = new SlowQuery(System.currentTimeMillis(), operation, millis, rows, failed,
+                    sql, formatBinds(binds));
+            slowCount.incrementAndGet();
+            synchronized (slowLog) {
+                slowLog.addFirst(q);
+                if (slowLog.size() > SLOW_LOG_SIZE) slowLog.removeLast();
+            }
+            System.err.println("[slow query] " + q);
+        }
+    }
+
+    /** Called by ConnectionPool for every borrow (including time spent opening a connection). */
+    void recordAcquire(long nanos) {
+        acquire.record(nanos);
+    }
+
+    private static String formatBinds(Map<Integer, Object> binds) {
+        if (binds == null || binds.isEmpty()) return "";
+        StringBuilder sb = new StringBuilder("[");
+        for (Map.Entry<Integer, Object> e : binds.entrySet()) {
+            if (sb.length() > 1) sb.append(", ");
+            Object v = e.getValue();
+            sb.append(e.getKey()).append('=');
+            if (v instanceof CharSequence) sb.append('\'').append(v).append('\'');
+            else sb.append(v);
+        }
+        return sb.append(']').toString();
+    }
+
+    /* ---------- MXBean / Diagnostics ---------- */
+
+    @Override
+    public long getQueryCount() {
+        long n = 0;
+        for (Operation op : operations.values()) n += op.latency.getCount();
+        return n;
+    }
+
+    @Override public long getSlowQueryCount() { return slowCount.get(); }
+    @Override public long getSlowQueryThresholdMillis() { return slowThresholdMillis; }
+    @Override public void setSlowQueryThresholdMillis(long millis) { slowThresholdMillis = Math.max(0, millis); }
+
+    @Override public double getConnectionAcquireP50Millis() { return acquire.percentileMillis(50); }
+    @Override public double getConnectionAcquireP95Millis() { return acquire.percentileMillis(95); }
+    @Override public double getConnectionAcquireP99Millis() { return acquire.percentileMillis(99); }
+
+    public double getConnectionAcquireMaxMillis() { return acquire.getMaxMillis(); }
+
+    @Override
+    public String getPoolStats() {
+        return org.example.Database.poolStats().toString();
+    }
+
+    /** Sorted by total time spent, most expensive first. */
+    @Override
+    public List<OperationSnapshot> getOperations() {
+        List<OperationSnapshot> list = new ArrayList<>();
+        operations.forEach((name, op) -> list.add(new OperationSnapshot(name, op)));
+        list.sort(Comparator.comparingDouble((OperationSnapshot s) -> s.getAvgMillis() * s.getCalls()).reversed());
+        return list;
+    }
+
+    @Override
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowLog) {
+            return new ArrayList<>(slowLog);
+        }
+    }
+
+    @Override
+    public void reset() {
+        operations.clear();
+        acquire.reset();
+        slowCount.set(0);
+        synchronized (slowLog) {
+            slowLog.clear();
+        }
+    }
+
+    /** Point-in-time figures of one operation. */
+    public static final class OperationSnapshot {
+        private final String operation;
+        private final long calls;
+        private final long errors;
+        private final long rows;
+        private final double avgMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        OperationSnapshot(String operation, Operation op) {
+            this.operation = operation;
+            this.calls = op.latency.getCount();
+            this.errors = op.errors.sum();
+            this.rows = op.rows.sum();
+            this.avgMillis = op.latency.getAvgMillis();
+            this.p50Millis = op.latency.percentileMillis(50);
+            this.p95Millis = op.latency.percentileMillis(95);
+            this.p99Millis = op.latency.percentileMillis(99);
+            this.maxMillis = op.latency.getMaxMillis();
+        }
+
+        public String getOperation() { return operation; }
+        public long getCalls() { return calls; }
+        public long getErrors() { return errors; }
+        public long getRows() { return rows; }
+        public double getAvgRows() { return calls == 0 ? 0 : (double) rows / calls; }
+        public double getAvgMillis() { return avgMillis; }
+        public double getP50Millis() { return p50Millis; }
+        public double getP95Millis() { return p95Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public double getMaxMillis() { return maxMillis; }
+    }
+
+    /** One entry of the slow-query log. */
+    public static final class SlowQuery {
+        private final long timestamp;
+        private final String operation;
+        private final long millis;
+        private final long rows;
+        private final boolean failed;
+        private final String sql;
+        private final String binds;
+
+        SlowQuery(long timestamp, String operation, long millis, long rows, boolean failed, String sql, String binds) {
+            this.timestamp = timestamp;
+            this.operation = operation;
+            this.millis = millis;
+            this.rows = rows;
+            this.failed = failed;
+            this.sql = (sql == null) ? "" : sql.strip().replaceAll("\\s+", " ");
+            this.binds = binds;
+        }
+
+        public long getTimestamp() { return timestamp; }
+        public String getOperation() { return operation; }
+        public long getMillis() { return millis; }
+        public long getRows() { return rows; }
+        public boolean isFailed() { return failed; }
+        public String getSql() { return sql; }
+        public String getBinds() { return binds; }
+
+        @Override
+        public String toString() {
+            return Instant.ofEpochMilli(timestamp) + " " + operation + " " + millis + " ms, " + rows + " rows"
+                    + (failed ? " (failed)" : "") + ": " + sql + (binds.isEmpty() ? "" : " " + binds);
+        }
+    }
+}
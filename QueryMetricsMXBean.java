@@ -0,0 +1,29 @@
+package org.example;
+
+import java.util.List;
+
+/** JMX view of QueryMetrics (ObjectName org.example:type=QueryMetrics). */
+public interface QueryMetricsMXBean {
+
+    long getQueryCount();
+
+    long getSlowQueryCount();
+
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long millis);
+
+    double getConnectionAcquireP50Millis();
+
+    double getConnectionAcquireP95Millis();
+
+    double getConnectionAcquireP99Millis();
+
+    String getPoolStats();
+
+    List<QueryMetrics.OperationSnapshot> getOperations();
+
+    List<QueryMetrics.SlowQuery> getSlowQueries();
+
+    void reset();
+}
@@ -0,0 +1,49 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Aggregated figures for the Statistics tab, as computed by TierheimService.loadStatistics().
+ * - Maps keep the order of the query (largest group first, age buckets youngest first,
+ *   weeks oldest first with empty weeks included).
+ * - changeSeq is the change-log position the figures are based on.
+ */
+public class ShelterStatistics {
+
+    private final int total;
+    private final Map<String, Integer> bySpecies;
+    private final Map<String, Integer> bySex;
+    private final Map<String, Integer> byEnclosure;
+    private final Map<String, Integer> byAge;
+    private final Map<LocalDate, Integer> arrivalsPerWeek;     // key = Monday of the week
+    private final double avgStayDays;                          // NaN if no animal has an arrival date
+    private final LocalDate day;
+    private final long changeSeq;
+
+    public ShelterStatistics(int total, Map<String, Integer> bySpecies, Map<String, Integer> bySex,
+                             Map<String, Integer> byEnclosure, Map<String, Integer> byAge,
+                             Map<LocalDate, Integer> arrivalsPerWeek, double avgStayDays,
+                             LocalDate day, long changeSeq) {
+        this.total = total;
+        this.bySpecies = bySpecies;
+        this.bySex = bySex;
+        this.byEnclosure = byEnclosure;
+        this.byAge = byAge;
+        this.arrivalsPerWeek = arrivalsPerWeek;
+        this.avgStayDays = avgStayDays;
+        this.day = day;
+        this.changeSeq = changeSeq;
+    }
+
+    public int getTotal() { return total; }
+    public Map<String, Integer> getBySpecies() { return bySpecies; }
+    public Map<String, Integer> getBySex() { return bySex; }
+    public Map<String, Integer> getByEnclosure() { return byEnclosure; }
+    public Map<String, Integer> getByAge() { return byAge; }
+    public Map<LocalDate, Integer> getArrivalsPerWeek() { return arrivalsPerWeek; }
+    public double getAvgStayDays() { return avgStayDays; }
+    /** The date "today" had when the figures were computed (ages and stays depend on it). */
+    public LocalDate getDay() { return day; }
+    public long getChangeSeq() { return changeSeq; }
+}
@@ -0,0 +1,81 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup phases with their time since the JVM started, e.g. "frame shown", "first paint",
+ * "interactive", "tab Animals built". Shown in the Diagnostics tab and printed to stderr.
+ * - time to first paint: "first paint"
+ * - time to interactive: "interactive" (first paint done and all startup prefetches finished)
+ */
+public final class StartupTimer {
+
+    private static final long JVM_START_MS = ProcessHandle.current().info().startInstant()
+            .map(java.time.Instant::toEpochMilli)
+            .orElse(System.currentTimeMillis());
+    private static final boolean LOG = !"false".equals(System.getProperty("tierheim.startup.log"));
+
+    private static final List<Phase> PHASES = new ArrayList<>();     // guarded by itself
+
+    private StartupTimer() {}
+
+    /** Records a phase as reached now. */
+    public static void mark(String phase) {
+        mark(phase, -1);
+    }
+
+    /** Records a phase that took the given time (e.g. a prefetch), reached now. */
+    public static void mark(String phase, long tookNanos) {
+        record(phase, tookNanos, false);
+    }
+
+    /** Records the phase only the first time it is reached. */
+    public static void markOnce(String phase) {
+        record(phase, -1, true);
+    }
+
+    private static void record(String phase, long tookNanos, boolean once) {
+        Phase p = new Phase(phase, System.currentTimeMillis() - JVM_START_MS,
+                tookNanos < 0 ? -1 : tookNanos / 1_000_000, Thread.currentThread().getName());
+        synchronized (PHASES) {
+            if (once && PHASES.stream().anyMatch(x -> x.getName().equals(phase))) return;
+            PHASES.add(p);
+        }
+        if (LOG) System.err.println("[startup] " + p);
+    }
+
+    public static List<Phase> getPhases() {
+        synchronized (PHASES) {
+            return new ArrayList<>(PHASES);
+        }
+    }
+
+    /** One reached phase. */
+    public static final class Phase {
+        private final String name;
+        private final long atMillis;
+        private final long tookMillis;
+        private final String thread;
+
+        Phase(String name, long atMillis, long tookMillis, String thread) {
+            this.name = name;
+            this.atMillis = atMillis;
+            this.tookMillis = tookMillis;
+            this.thread = thread;
+        }
+
+        public String getName() { return name; }
+        /** Milliseconds since the JVM started. */
+        public long getAtMillis() { return atMillis; }
+        /** Duration of the step, -1 if it is just a point in time. */
+        public long getTookMillis() { return tookMillis; }
+        public String getThread() { return thread; }
+
+        @Override
+        public String toString() {
+            return name + " at " + atMillis + " ms" + (tookMillis >= 0 ? " (took " + tookMillis + " ms)" : "")
+                    + " [" + thread + "]";
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.example;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Statistics tab: animals by species, sex, enclosure and age, arrivals per week, average stay.
+ * - Figures come from aggregate queries (TierheimService.loadStatistics), in the background.
+ * - While the tab is visible it checks every tierheim.stats.refreshSeconds (default 30) whether
+ *   the change log moved or the day changed; only then are the aggregates run again.
+ *   An idle tab costs one MAX(seq) lookup per interval.
+ */
+public class StatisticsPanel extends JPanel {
+
+    private static final int REFRESH_SECONDS = Integer.getInteger("tierheim.stats.refreshSeconds", 30);
+    private static final int WEEKS = 12;
+
+    private final org.example.TierheimService service = new org.example.TierheimService();
+
+    private final JLabel summaryLabel = new JLabel(" ");
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JButton btnRefresh = new JButton("Refresh");
+
+    private final DefaultTableModel speciesModel = readOnlyModel("Species");
+    private final DefaultTableModel sexModel = readOnlyModel("Sex");
+    private final DefaultTableModel enclosureModel = readOnlyModel("Enclosure");
+    private final DefaultTableModel ageModel = readOnlyModel("Age (years)");
+    private final DefaultTableModel weekModel = readOnlyModel("Week of");
+
+    private volatile org.example.ShelterStatistics shown;     // read by the background check
+    private boolean forcePending;                              // a forced refresh not yet delivered (EDT only)
+    private final Timer timer = new Timer(REFRESH_SECONDS * 1000, e -> refresh(false));
+
+    public StatisticsPanel() {
+        setLayout(new BorderLayout(8, 8));
+        setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+
+        JPanel labels = new JPanel(new GridLayout(2, 1));
+        labels.add(summaryLabel);
+        labels.add(statusLabel);
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(labels, BorderLayout.CENTER);
+        top.add(btnRefresh, BorderLayout.EAST);
+        add(top, BorderLayout.NORTH);
+
+        JPanel grid = new JPanel(new GridLayout(2, 3, 8, 8));
+        grid.add(titled(table(speciesModel), "By species"));
+        grid.add(titled(table(sexModel), "By sex"));
+        grid.add(titled(table(ageModel), "By age"));
+        grid.add(titled(table(enclosureModel), "By enclosure"));
+        grid.add(titled(table(weekModel), "Arrivals per week (last " + WEEKS + ")"));
+        add(grid, BorderLayout.CENTER);
+
+        btnRefresh.addActionListener(e -> refresh(true));
+
+        // only poll while the tab is on screen
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & java.awt.event.HierarchyEvent.SHOWING_CHANGED) == 0) return;
+            if (isShowing()) {
+                refresh(false);
+                timer.start();
+            } else {
+                timer.stop();
+            }
+        });
+    }
+
+    private static final String PREFETCH_KEY = "statistics";
+
+    private static org.example.ShelterStatistics read(org.example.TierheimService service) throws Exception {
+        long seq = service.currentChangeSeq();        // before the aggregates: a change meanwhile triggers a recompute
+        return service.loadStatistics(WEEKS, seq);
+    }
+
+    /** Starts computing the figures at startup, before the tab is built. */
+    public static void prefetch() {
+        org.example.TierheimService service = new org.example.TierheimService();
+        org.example.Prefetch.start(PREFETCH_KEY, () -> read(service));
+    }
+
+    /**
+     * Recomputes in the background; unless forced, only if something changed since the shown figures.
+     * Timer and button share one slot, so a newer call replaces an older one; a replaced forced
+     * refresh passes its force on.
+     */
+    private void refresh(boolean force) {
+        boolean forced = force || forcePending;
+        forcePending = forced;
+        if (forced) statusLabel.setText("Refreshing...");
+        org.example.DbExecutor.run(null, "statistics", () -> {
+            if (shown == null && !forced) return org.example.Prefetch.take(PREFETCH_KEY, () -> read(service));
+            long seq = service.currentChangeSeq();
+            org.example.ShelterStatistics s = shown;
+            if (!forced && s != null && s.getChangeSeq() == seq && s.getDay().equals(LocalDate.now())) {
+                return null;                                  // nothing new
+            }
+            return service.loadStatistics(WEEKS, seq);
+        }, s -> {
+            forcePending = false;
+            if (s != null) show(s);
+            statusLabel.setText("Checked " + LocalTime.now().withNano(0)
+                    + " (every " + REFRESH_SECONDS + " s while visible)");
+        }, ex -> {
+            forcePending = false;
+            ex.printStackTrace();
+            statusLabel.setText("Refresh failed: " + ex.getMessage());
+            if (forced) JOptionPane.showMessageDialog(this, "Loading statistics failed: " + ex.getMessage());
+        });
+    }
+
+    private void show(org.example.ShelterStatistics s) {
+        shown = s;
+        String stay = Double.isNaN(s.getAvgStayDays()) ? "-" : String.format("%.1f days", s.getAvgStayDays());
+        summaryLabel.setText("Animals: " + s.getTotal() + "    Average stay so far: " + stay);
+
+        fill(speciesModel, s.getBySpecies(), s.getTotal());
+        fill(sexModel, s.getBySex(), s.getTotal());
+        fill(enclosureModel, s.getByEnclosure(), s.getTotal());
+        fill(ageModel, s.getByAge(), s.getTotal());
+
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+        int maxWeek = s.getArrivalsPerWeek().values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        weekModel.setRowCount(0);
+        for (Map.Entry<LocalDate, Integer> e : s.getArrivalsPerWeek().entrySet()) {
+            // bars relative to the busiest week, so quiet weeks are still visible
+            weekModel.addRow(new Object[]{e.getKey().format(fmt), e.getValue(), percent(e.getValue(), maxWeek)});
+        }
+    }
+
+    private static void fill(DefaultTableModel model, Map<String, Integer> counts, int total) {
+        model.setRowCount(0);
+        for (Map.Entry<String, Integer> e : counts.entrySet()) {
+            model.addRow(new Object[]{e.getKey(), e.getValue(), percent(e.getValue(), total)});
+        }
+    }
+
+    private static int percent(int part, int whole) {
+        return whole <= 0 ? 0 : (int) Math.round(100.0 * part / whole);
+    }
+
+    /* ---------- tables ---------- */
+
+    private static DefaultTableModel readOnlyModel(String group) {
+        return new DefaultTableModel(new String[]{group, "Count", "Share"}, 0) {
+            @Override public boolean isCellEditable(int row, int col) { return false; }
+
+            @Override public Class<?> getColumnClass(int col) {
+                return col == 0 ? String.class : Integer.class;
+            }
+        };
+    }
+
+    private static JComponent table(DefaultTableModel model) {
+        JTable t = new JTable(model);
+        t.setAutoCreateRowSorter(true);
+        t.getColumnModel().getColumn(0).setPreferredWidth(160);
+        t.getColumnModel().getColumn(2).setCellRenderer(new org.example.BarRenderer());
+        return new JScrollPane(t);
+    }
+
+    private static JComponent titled(JComponent c, String title) {
+        c.setBorder(BorderFactory.createTitledBorder(title));
+        return c;
+    }
+}
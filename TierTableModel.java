@@ -1,36 +1,518 @@
 package org.example;
 
 import javax.swing.table.AbstractTableModel;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
 
+/**
+ * Table model for animals, newest (highest id) first.
+ * - With a service: rows are fetched page by page (keyset on id) while the user scrolls,
+ *   and only the last MAX_CACHED_PAGES pages are kept in memory.
+ * - Without a service: shows the list (or store) given to setData().
+ * - Rows are kept columnar in an AnimalStore per page and getValueAt reads the columns
+ *   directly; a Tier is only created for getAt().
+ * - insertRow/updateRow/removeRow patch single rows and fire fine-grained events.
+ * - setFilter shows only the given ids (search results); their rows are taken from the loaded
+ *   pages or a small row cache, missing ones are read in chunks with findByIds.
+ * Must be used on the EDT.
+ */
 public class TierTableModel extends AbstractTableModel {
 
+    public static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 10;     // bounded window: ~2000 rows
+    private static final int MAX_CACHED_ROWS = 5000;    // rows read for search results
+    private static final int TEXT_SLOTS = 1024;         // decoded names/notes kept (power of two)
+
     // Column headers (no "Adopted")
     private final String[] cols = {
             "ID", "Name", "Species", "Age",
             "Inclosure ID", "Sex", "Color", "Arrival Date", "Health Note"
     };
 
-    private List<org.example.Tier> data = new ArrayList<>();
+    /**
+     * One page of rows. A page covers the ids below afterId (all ids for the first page)
+     * down to where the next page starts. rows == null means evicted (size is still known).
+     */
+    private static final class Page {
+        final Integer afterId;
+        int size;
+        org.example.AnimalStore rows;
+        boolean pending;
+
+        Page(Integer afterId) { this.afterId = afterId; }
+    }
+
+    private final org.example.TierheimService service;    // null = fixed data via setData
+
+    private final List<Page> pages = new ArrayList<>();
+    private final LinkedHashSet<Page> loaded = new LinkedHashSet<>();   // LRU order, eldest first
+    private int[] offsets = new int[0];                   // first row of each page
+    private boolean offsetsDirty;
+    private int rowCount;
+    private boolean hasMore;
+    private int generation;                               // bumped on reload, drops late pages
+    private Consumer<Exception> errorHandler = Throwable::printStackTrace;
+    private org.example.AnimalStore.Dictionaries dictionaries = new org.example.AnimalStore.Dictionaries();
+
+    // search results (null = no filter)
+    private int[] filterIds;
+    private int filterGeneration;
+    private final Set<Integer> filterPending = new HashSet<>();          // chunk numbers being read
+    private final Set<Integer> filterGone = new HashSet<>();             // ids deleted since the search
+    private final Map<Integer, org.example.Tier> rowCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Integer, org.example.Tier> e) {
+            return size() > MAX_CACHED_ROWS;
+        }
+    };
+
+    // see text(): id per slot (0 = empty, ids start at 1) and its decoded values
+    private final int[] textIds = new int[TEXT_SLOTS];
+    private final String[] textNames = new String[TEXT_SLOTS];
+    private final String[] textNotes = new String[TEXT_SLOTS];
+
+    public TierTableModel() {
+        this(null);
+    }
+
+    public TierTableModel(org.example.TierheimService service) {
+        this.service = service;
+    }
 
+    public void setErrorHandler(Consumer<Exception> handler) {
+        this.errorHandler = (handler != null) ? handler : Throwable::printStackTrace;
+    }
+
+    /** Shows the given list (expected newest first). */
     public void setData(List<org.example.Tier> list) {
-        this.data = (list != null) ? list : new ArrayList<>();
+        resetState();
+        List<org.example.Tier> all = (list != null) ? list : new ArrayList<>();
+        Integer afterId = null;
+        for (int from = 0; from < all.size(); from += PAGE_SIZE) {
+            Page p = new Page(afterId);
+            p.rows = org.example.AnimalStore.of(all.subList(from, Math.min(all.size(), from + PAGE_SIZE)), dictionaries);
+            p.size = p.rows.size();
+            pages.add(p);
+            afterId = p.rows.id(p.size - 1);
+        }
+        rowCount = all.size();
+        fireTableDataChanged();
+    }
+
+    /** Shows the given store (expected newest first) as it is, without copying it into pages. */
+    public void setData(org.example.AnimalStore store) {
+        resetState();
+        Page p = new Page(null);
+        p.rows = (store != null) ? store : new org.example.AnimalStore(16, dictionaries);
+        p.size = p.rows.size();
+        pages.add(p);
+        rowCount = p.size;
         fireTableDataChanged();
     }
 
+    /** Drops everything and fetches the first page again. */
+    public void reload() {
+        if (service == null) return;
+        startReload();
+        requestPage(pages.get(0));
+    }
+
+    /** Like reload(), with the first page already read (findPage(null, PAGE_SIZE), e.g. prefetched). */
+    public void reload(List<org.example.Tier> firstPage) {
+        if (service == null) return;
+        startReload();
+        Page p = pages.get(0);
+        p.pending = true;
+        pageLoaded(generation, p, firstPage, PAGE_SIZE);
+    }
+
+    /**
+     * Brings the first page in line with a fresh read of it (e.g. after showing a local snapshot):
+     * only rows that were added, changed or are gone are patched.
+     */
+    public void reconcileFirstPage(List<org.example.Tier> fresh) {
+        if (pages.isEmpty() || pages.get(0).rows == null) {
+            reload(fresh);
+            return;
+        }
+        Map<Integer, org.example.Tier> byId = new HashMap<>();
+        for (org.example.Tier t : fresh) byId.put(t.getId(), t);
+        org.example.AnimalStore shown = pages.get(0).rows;
+        List<Integer> gone = new ArrayList<>();
+        for (int i = 0; i < shown.size(); i++) {
+            if (!byId.containsKey(shown.id(i))) gone.add(shown.id(i));
+        }
+        gone.forEach(this::removeRow);
+        for (org.example.Tier t : fresh) {
+            int idx = shown.indexOfId(t.getId());
+            if (idx < 0) insertRow(t);
+            else if (!sameRow(shown, idx, t)) updateRow(t);
+        }
+        if (pages.size() == 1) hasMore = fresh.size() == PAGE_SIZE;
+    }
+
+    private static boolean sameRow(org.example.AnimalStore s, int idx, org.example.Tier t) {
+        return Objects.equals(s.name(idx), t.getName()) && Objects.equals(s.species(idx), t.getSpecies())
+                && Objects.equals(s.age(idx), t.getAge()) && Objects.equals(s.enclosureId(idx), t.getInclosureId())
+                && Objects.equals(s.sex(idx), t.getSex()) && Objects.equals(s.color(idx), t.getColor())
+                && Objects.equals(s.arrivalDate(idx), t.getArrivalDate())
+                && Objects.equals(s.healthNote(idx), t.getHealthNote())
+                && Objects.equals(s.birthDate(idx), t.getBirthDate());
+    }
+
+    /** Rows of the first page if it is in memory (for the local snapshot), else null. */
+    public List<org.example.Tier> firstPageRows() {
+        if (pages.isEmpty() || pages.get(0).rows == null) return null;
+        org.example.AnimalStore s = pages.get(0).rows;
+        List<org.example.Tier> out = new ArrayList<>(s.size());
+        for (int i = 0; i < s.size(); i++) out.add(s.get(i));
+        return out;
+    }
+
+    private void startReload() {
+        resetState();
+        rowCache.clear();
+        filterPending.clear();
+        filterGone.clear();
+        filterGeneration++;
+        pages.add(new Page(null));
+        hasMore = true;
+        fireTableDataChanged();
+    }
+
+    private void resetState() {
+        generation++;
+        pages.clear();
+        loaded.clear();
+        dictionaries = new org.example.AnimalStore.Dictionaries();   // the old pages' values go with them
+        Arrays.fill(textIds, 0);
+        offsetsDirty = true;
+        rowCount = 0;
+        hasMore = false;
+    }
+
+    /** Returns null if the row's page is not in memory (it is requested then). */
     public org.example.Tier getAt(int row) {
-        if (row < 0 || row >= data.size()) return null;
-        return data.get(row);
+        if (filterIds != null) return getFilteredAt(row);
+        int idx = locate(row);
+        return (idx >= 0) ? located.get(idx) : null;
+    }
+
+    private org.example.AnimalStore located;              // set by locate()
+
+    /** Index of the row in its page's store (left in located), or -1 if the page is not in memory. */
+    private int locate(int row) {
+        if (row < 0 || row >= rowCount) return -1;
+        int k = pageOfRow(row);
+        Page p = pages.get(k);
+        if (p.rows == null) {
+            requestPage(p);
+            return -1;
+        }
+        touch(p);
+        int idx = row - offsets[k];
+        if (hasMore && k == pages.size() - 1 && idx >= p.size - PAGE_SIZE / 4) {
+            requestNextPage();                            // near the end: fetch the next page ahead
+        }
+        if (idx >= p.rows.size()) return -1;
+        located = p.rows;
+        return idx;
+    }
+
+    /* ---------- row patches ---------- */
+
+    /**
+     * Adds a newly persisted animal at its place (new ids are the highest, so normally row 0).
+     * If the row is already shown (e.g. it came with a page and via the change feed) it is updated.
+     */
+    public void insertRow(org.example.Tier t) {
+        if (pages.isEmpty()) pages.add(emptyLoadedPage());
+        int k = pageOfId(t.getId());
+        Page p = pages.get(k);
+        int row = offset(k);
+        if (p.rows != null) {
+            int idx = 0;
+            while (idx < p.rows.size() && p.rows.id(idx) > t.getId()) idx++;
+            if (idx < p.rows.size() && p.rows.id(idx) == t.getId()) {
+                p.rows.set(idx, t);
+                forgetText(t.getId());
+                if (filterIds == null) fireTableRowsUpdated(row + idx, row + idx);
+                return;
+            }
+            p.rows.insert(idx, t);
+            row += idx;
+        }
+        // evicted page: it is re-read with the new size, so the exact index does not matter
+        p.size++;
+        rowCount++;
+        offsetsDirty = true;
+        if (filterIds == null) fireTableRowsInserted(row, row);
+        else rowCache.put(t.getId(), t);      // the filter is re-applied by the caller
+    }
+
+    public void updateRow(org.example.Tier t) {
+        forgetText(t.getId());
+        if (filterIds != null) {
+            if (rowCache.containsKey(t.getId())) rowCache.put(t.getId(), t);
+            int row = filteredRowOf(t.getId());
+            if (row >= 0) fireTableRowsUpdated(row, row);
+        }
+        int k = pageOfId(t.getId());
+        if (k < 0) return;
+        Page p = pages.get(k);
+        if (p.rows == null) return;                       // not in memory, re-read when needed
+        int idx = p.rows.indexOfId(t.getId());
+        if (idx >= 0) {
+            p.rows.set(idx, t);
+            int row = offset(k) + idx;
+            if (filterIds == null) fireTableRowsUpdated(row, row);
+        }
+    }
+
+    public void removeRow(int id) {
+        rowCache.remove(id);
+        forgetText(id);
+        int k = pageOfId(id);
+        if (k < 0) return;
+        Page p = pages.get(k);
+        int row = offset(k);
+        if (p.rows != null) {
+            int idx = p.rows.indexOfId(id);
+            if (idx < 0) return;                          // not shown
+            p.rows.remove(idx);
+            row += idx;
+        } else if (p.size == 0) {
+            return;
+        }
+        p.size--;
+        rowCount--;
+        offsetsDirty = true;
+        if (filterIds == null) fireTableRowsDeleted(row, row);
+    }
+
+    /** Page whose id range contains the id (pages are ordered by descending id). */
+    private int pageOfId(int id) {
+        if (pages.isEmpty()) return -1;
+        int lo = 0, hi = pages.size() - 1;
+        while (lo < hi) {                                 // last page with afterId == null || id < afterId
+            int mid = (lo + hi + 1) >>> 1;
+            Integer after = pages.get(mid).afterId;
+            if (after == null || id < after) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private Page emptyLoadedPage() {
+        Page p = new Page(null);
+        p.rows = new org.example.AnimalStore(16, dictionaries);
+        loaded.add(p);
+        return p;
+    }
+
+    /* ---------- filter (search results) ---------- */
+
+    /** Shows only these ids in this order; null shows all animals again. */
+    public void setFilter(int[] ids) {
+        if (ids == null && filterIds == null) return;
+        filterIds = ids;
+        filterGeneration++;
+        filterPending.clear();
+        filterGone.clear();
+        fireTableDataChanged();
+    }
+
+    public boolean isFiltered() {
+        return filterIds != null;
+    }
+
+    private org.example.Tier getFilteredAt(int row) {
+        if (row < 0 || row >= filterIds.length) return null;
+        org.example.Tier t = lookup(filterIds[row]);
+        if (t == null && !filterGone.contains(filterIds[row])) requestFilterChunk(row / PAGE_SIZE);
+        return t;
     }
 
-    @Override public int getRowCount() { return data.size(); }
+    /** Like locate() for the filtered view: index in a loaded page's store (left in located), or -1. */
+    private int locateFiltered(int row) {
+        if (row < 0 || row >= filterIds.length) return -1;
+        int id = filterIds[row];
+        int k = pageOfId(id);
+        if (k < 0) return -1;
+        Page p = pages.get(k);
+        if (p.rows == null) return -1;
+        int idx = p.rows.indexOfId(id);
+        if (idx < 0) return -1;
+        touch(p);
+        located = p.rows;
+        return idx;
+    }
+
+    /** A row already in memory: row cache or a loaded page. */
+    private org.example.Tier lookup(int id) {
+        org.example.Tier t = rowCache.get(id);
+        if (t != null) return t;
+        int k = pageOfId(id);
+        if (k < 0) return null;
+        org.example.AnimalStore rows = pages.get(k).rows;
+        if (rows == null) return null;
+        int idx = rows.indexOfId(id);
+        return (idx >= 0) ? rows.get(idx) : null;
+    }
+
+    private int filteredRowOf(int id) {
+        for (int i = 0; i < filterIds.length; i++) {
+            if (filterIds[i] == id) return i;
+        }
+        return -1;
+    }
+
+    private void requestFilterChunk(int chunk) {
+        if (service == null || !filterPending.add(chunk)) return;
+        int from = chunk * PAGE_SIZE;
+        int to = Math.min(filterIds.length, from + PAGE_SIZE);
+        List<Integer> missing = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (lookup(filterIds[i]) == null) missing.add(filterIds[i]);
+        }
+        int gen = filterGeneration;
+        org.example.DbExecutor.run(null, () -> service.findByIds(missing), rows -> {
+            if (gen != filterGeneration) return;
+            rows.forEach(t -> rowCache.put(t.getId(), t));
+            filterGone.addAll(missing);
+            rows.forEach(t -> filterGone.remove(t.getId()));
+            filterPending.remove(chunk);
+            fireTableRowsUpdated(from, to - 1);
+        }, ex -> {
+            if (gen != filterGeneration) return;
+            filterPending.remove(chunk);
+            errorHandler.accept(ex);
+        });
+    }
+
+    /* ---------- paging ---------- */
+
+    private void requestNextPage() {
+        Page last = pages.get(pages.size() - 1);
+        if (last.pending || last.rows == null || last.rows.size() == 0) return;
+        Page next = new Page(last.rows.id(last.rows.size() - 1));
+        pages.add(next);
+        hasMore = false;                                  // until the next page says otherwise
+        offsetsDirty = true;
+        requestPage(next);
+    }
+
+    private void requestPage(Page p) {
+        if (service == null || p.pending) return;
+        p.pending = true;
+        int gen = generation;
+        // a page with a page after it is re-read by id range, down to where that page starts, so
+        // rows deleted meanwhile cannot pull the next page's rows in twice; the last page by count
+        int k = pages.indexOf(p);
+        Integer nextStart = (k >= 0 && k + 1 < pages.size()) ? pages.get(k + 1).afterId : null;
+        int limit = (p.rows == null && p.size > 0) ? p.size : PAGE_SIZE;
+        org.example.DbExecutor.run(null, () -> nextStart != null
+                        ? service.findPageRange(p.afterId, nextStart)
+                        : service.findPage(p.afterId, limit),
+                rows -> pageLoaded(gen, p, rows, limit),
+                ex -> {
+                    if (gen != generation) return;
+                    p.pending = false;
+                    errorHandler.accept(ex);
+                });
+    }
+
+    private void pageLoaded(int gen, Page p, List<org.example.Tier> rows, int limit) {
+        if (gen != generation) return;
+        p.pending = false;
+        int k = pages.indexOf(p);
+        if (k < 0) return;
+
+        boolean isLast = k == pages.size() - 1;
+        if (isLast) hasMore = rows.size() == limit;
+        int oldSize = p.size;
+        if (isLast && oldSize == 0 && rows.isEmpty()) {
+            if (k > 0) pages.remove(k);                   // nothing after the previous page
+            offsetsDirty = true;
+            return;
+        }
+
+        p.rows = org.example.AnimalStore.of(rows, dictionaries);
+        p.size = rows.size();
+        for (org.example.Tier t : rows) forgetText(t.getId());      // re-read: values may have changed
+        touch(p);
+        offsetsDirty = true;
+
+        if (filterIds != null) {
+            rowCount += p.size - oldSize;                 // not on screen while a filter is shown
+        } else if (isLast && oldSize == 0) {
+            // a new page at the end: rows are appended
+            int first = rowCount;
+            rowCount += rows.size();
+            fireTableRowsInserted(first, rowCount - 1);
+        } else if (oldSize == p.size) {
+            // an evicted page came back unchanged in size
+            int first = offset(k);
+            fireTableRowsUpdated(first, first + p.size - 1);
+        } else {
+            // rows were patched while the page was out of memory, or other clients changed this range
+            rowCount += p.size - oldSize;
+            fireTableDataChanged();
+        }
+    }
+
+    /** Marks the page as recently used and evicts the least recently used page beyond the window. */
+    private void touch(Page p) {
+        loaded.remove(p);
+        loaded.add(p);
+        if (service == null) return;
+        while (loaded.size() > MAX_CACHED_PAGES) {
+            Iterator<Page> it = loaded.iterator();
+            it.next().rows = null;
+            it.remove();
+        }
+    }
+
+    private int offset(int k) {
+        rebuildOffsets();
+        return offsets[k];
+    }
+
+    private int pageOfRow(int row) {
+        rebuildOffsets();
+        int k = Arrays.binarySearch(offsets, 0, pages.size(), row);
+        if (k < 0) k = -k - 2;
+        // skip empty pages that share the same offset
+        while (k + 1 < pages.size() && offsets[k + 1] <= row) k++;
+        return k;
+    }
+
+    private void rebuildOffsets() {
+        if (!offsetsDirty && offsets.length >= pages.size()) return;
+        if (offsets.length < pages.size()) offsets = new int[Math.max(16, pages.size() * 2)];
+        int sum = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            offsets[i] = sum;
+            sum += pages.get(i).size;
+        }
+        offsetsDirty = false;
+    }
+
+    @Override public int getRowCount() { return filterIds != null ? filterIds.length : rowCount; }
     @Override public int getColumnCount() { return cols.length; }
     @Override public String getColumnName(int col) { return cols[col]; }
 
     @Override
     public Object getValueAt(int row, int col) {
-        org.example.Tier t = data.get(row);
+        if (filterIds == null) {
+            int idx = locate(row);
+            return (idx >= 0) ? valueAt(located, idx, col) : null;    // null: page still loading
+        }
+        int idx = locateFiltered(row);
+        if (idx >= 0) return valueAt(located, idx, col);              // in a loaded page: its columns
+        org.example.Tier t = getFilteredAt(row);                      // row cache, else requested
+        if (t == null) {                                  // row still loading
+            return (col == 0 && row < filterIds.length) ? filterIds[row] : null;
+        }
         return switch (col) {
             case 0 -> t.getId();
             case 1 -> t.getName();
@@ -44,4 +526,43 @@ public class TierTableModel extends AbstractTableModel {
             default -> "";
         };
     }
-}
\ No newline at end of file
+
+    /** Reads one cell straight from the columns. */
+    private Object valueAt(org.example.AnimalStore s, int idx, int col) {
+        return switch (col) {
+            case 0 -> s.id(idx);
+            case 1 -> text(s, idx, false);
+            case 2 -> s.species(idx);
+            case 3 -> s.age(idx);
+            case 4 -> s.enclosureId(idx);
+            case 5 -> s.sex(idx);
+            case 6 -> s.color(idx);
+            case 7 -> s.arrivalDate(idx);
+            case 8 -> text(s, idx, true);
+            default -> "";
+        };
+    }
+
+    /* ---------- decoded text of recently shown rows ---------- */
+
+    /**
+     * Name and health note are UTF-8 bytes in the stores, and JTable asks for the same visible cells
+     * on every repaint. The last decoded values are kept per id (direct-mapped by id, so bounded);
+     * an entry is dropped whenever its row is patched or re-read.
+     */
+    private String text(org.example.AnimalStore s, int idx, boolean note) {
+        int id = s.id(idx);
+        int slot = id & (TEXT_SLOTS - 1);
+        if (textIds[slot] != id) {
+            textNames[slot] = s.name(idx);
+            textNotes[slot] = s.healthNote(idx);
+            textIds[slot] = id;
+        }
+        return note ? textNotes[slot] : textNames[slot];
+    }
+
+    private void forgetText(int id) {
+        int slot = id & (TEXT_SLOTS - 1);
+        if (textIds[slot] == id) textIds[slot] = 0;
+    }
+}
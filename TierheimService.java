@@ -3,11 +3,10 @@ package org.example;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.Period;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
- * Service/DAO for MySQL tables: animals + enclosures.
+ * Service/DAO for the tables animals + enclosures (MySQL or the embedded database, see Database).
  * - No 'adopted' column.
  * - Age is computed from birth_date.
  * - Insert derives birth_date from age when needed.
@@ -15,17 +14,9 @@ import java.util.List;
  */
 public class TierheimService {
 
-    private static final String DB_URL  = org.example.TestConnection.DB_URL;
-    private static final String DB_USER = org.example.TestConnection.DB_USER;
-    private static final String DB_PASS = org.example.TestConnection.DB_PASS;
-
-    static {
-        try { Class.forName("com.mysql.cj.jdbc.Driver"); }
-        catch (ClassNotFoundException e) { throw new RuntimeException("MySQL JDBC Driver not found", e); }
-    }
-
+    /** Pooled connection (shared with Database and the panels). */
     protected Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, DB_USER, DB_PASS);
+        return org.example.Database.getConnection();
     }
 
     /* ---------- helpers: read nullable ints safely ---------- */
@@ -37,141 +28,788 @@ public class TierheimService {
 
     /* ===================== READ ===================== */
 
-    public List<org.example.Tier> findAll() throws SQLException {
-        String sql = """
+    private static final String SELECT_ANIMAL = """
             SELECT
               id, name, species,
-              TIMESTAMPDIFF(YEAR, birth_date, CURDATE()) AS computed_age,
+              TIMESTAMPDIFF(YEAR, birth_date, CURRENT_DATE) AS computed_age,
               inclosure_id, sex, color, arrival_date, health_note, birth_date
             FROM animals
-            ORDER BY id DESC
         """;
 
+    public List<org.example.Tier> findAll() throws SQLException {
+        String sql = SELECT_ANIMAL + " ORDER BY id DESC";
+
         List<org.example.Tier> list = new ArrayList<>();
         try (Connection c = getConnection();
              PreparedStatement ps = c.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
             while (rs.next()) {
-                int id = rs.getInt("id");
-                String name = rs.getString("name");
-                String species = rs.getString("species");
+                list.add(mapTier(rs));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Keyset pagination in the same order as findAll (id DESC).
+     * afterId = last id of the previous page, or null for the first page.
+     * Cost does not depend on how deep the page is (no OFFSET scan).
+     */
+    public List<org.example.Tier> findPage(Integer afterId, int limit) throws SQLException {
+        String sql = SELECT_ANIMAL
+                + (afterId == null ? "" : " WHERE id < ?")
+                + " ORDER BY id DESC LIMIT ?";
+
+        List<org.example.Tier> list = new ArrayList<>(limit);
+        try (Connection c = getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            int i = 1;
+            if (afterId != null) ps.setInt(i++, afterId);
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapTier(rs));
+                }
+            }
+        }
+        return list;
+    }
 
-                Integer age = getNullableInt(rs, "computed_age");     // SAFE (Integer or null)
-                Integer inclosureId = getNullableInt(rs, "inclosure_id");
+    /**
+     * All rows with lowestId <= id < afterId (afterId null = no upper bound), id DESC: a page of
+     * findPage read again when the page after it is known, so it cannot run into that page.
+     */
+    public List<org.example.Tier> findPageRange(Integer afterId, int lowestId) throws SQLException {
+        String sql = SELECT_ANIMAL + " WHERE id >= ?"
+                + (afterId == null ? "" : " AND id < ?")
+                + " ORDER BY id DESC";
 
-                String sex = rs.getString("sex");
-                String color = rs.getString("color");
+        List<org.example.Tier> list = new ArrayList<>();
+        try (Connection c = getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, lowestId);
+            if (afterId != null) ps.setInt(2, afterId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapTier(rs));
+                }
+            }
+        }
+        return list;
+    }
 
-                java.sql.Date arr = rs.getDate("arrival_date");
-                LocalDate arrival = (arr == null) ? null : arr.toLocalDate();
+    /** Current rows for the given ids (missing ids = deleted meanwhile). */
+    public List<org.example.Tier> findByIds(Collection<Integer> ids) throws SQLException {
+        List<org.example.Tier> list = new ArrayList<>(ids.size());
+        for (List<Integer> chunk : chunks(new ArrayList<>(ids))) {
+            String sql = SELECT_ANIMAL + " WHERE id IN (" + placeholders(chunk.size()) + ") ORDER BY id DESC";
+            try (Connection c = getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                bindInts(ps, chunk);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        list.add(mapTier(rs));
+                    }
+                }
+            }
+        }
+        return list;
+    }
 
-                String health = rs.getString("health_note");
+    /** Receives one animal at a time from streamAll. */
+    @FunctionalInterface
+    public interface AnimalSink {
+        void accept(org.example.Tier t) throws java.io.IOException;
+    }
 
-                java.sql.Date bd = rs.getDate("birth_date");
-                LocalDate birthDate = (bd == null) ? null : bd.toLocalDate();
+    /**
+     * Same rows and order as findAll, but handed to the sink one by one instead of collected.
+     * The result set is forward-only/read-only and streamed by the driver, so memory use
+     * does not grow with the table. Returns the number of rows.
+     */
+    public long streamAll(AnimalSink sink) throws SQLException, java.io.IOException {
+        String sql = SELECT_ANIMAL + " ORDER BY id DESC";
 
-                org.example.Tier t = new org.example.Tier(
-                        id, name, species, age, null, inclosureId, sex, color, arrival, health, birthDate
-                );
-                list.add(t);
+        long n = 0;
+        try (Connection c = getConnection();
+             PreparedStatement ps = c.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(org.example.Database.streamingFetchSize());   // stream, do not buffer
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(mapTier(rs));
+                    n++;
+                }
             }
         }
-        return list;
+        return n;
+    }
+
+    private static org.example.Tier mapTier(ResultSet rs) throws SQLException {
+        int id = rs.getInt("id");
+        String name = rs.getString("name");
+        String species = rs.getString("species");
+
+        Integer age = getNullableInt(rs, "computed_age");     // SAFE (Integer or null)
+        Integer inclosureId = getNullableInt(rs, "inclosure_id");
+
+        String sex = rs.getString("sex");
+        String color = rs.getString("color");
+
+        java.sql.Date arr = rs.getDate("arrival_date");
+        LocalDate arrival = (arr == null) ? null : arr.toLocalDate();
+
+        String health = rs.getString("health_note");
+
+        java.sql.Date bd = rs.getDate("birth_date");
+        LocalDate birthDate = (bd == null) ? null : bd.toLocalDate();
+
+        return new org.example.Tier(
+                id, name, species, age, null, inclosureId, sex, color, arrival, health, birthDate
+        );
     }
 
     /* ===================== INSERT ===================== */
 
+    private static final String INSERT_ANIMAL = """
+            INSERT INTO animals
+              (name, species, age, inclosure_id, sex, color, arrival_date, health_note, birth_date)
+            VALUES
+              (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    /** Inserts or throws an SQLException with the reason (full / duplicate / not found). */
     public int insert(org.example.Tier t) throws SQLException {
-        if (t.getInclosureId() != null && !hasSpaceInEnclosure(t.getInclosureId())) {
-            throw new SQLException("Enclosure " + t.getInclosureId() + " is full");
+        org.example.InsertResult r = insertChecked(t);
+        if (!r.isInserted()) throw new SQLException(r.getMessage(t.getInclosureId()));
+        return r.getId();
+    }
+
+    /**
+     * Capacity check, duplicate check and INSERT in one transaction:
+     * 1) one SELECT that locks the enclosure row (FOR UPDATE) and returns capacity,
+     *    current count and whether a duplicate exists,
+     * 2) the INSERT, then commit.
+     * The row lock serializes concurrent inserts into the same enclosure, so two desks
+     * cannot both take the last free slot. Duplicates are not covered by that lock (other
+     * enclosure, or none): two desks storing the same animal at once are told apart by the
+     * unique key uq_animals_dup, whose violation is reported as DUPLICATE.
+     */
+    public org.example.InsertResult insertChecked(org.example.Tier t) throws SQLException {
+        LocalDate birth = resolveBirthDate(t);
+        Integer enc = t.getInclosureId();
+
+        // the database decides what a duplicate is (its collation), always inside this transaction
+        String dupSql = "EXISTS(SELECT 1 FROM animals d WHERE d.name = ? AND d.species = ? AND "
+                + (birth == null ? "d.birth_date IS NULL" : "d.birth_date = ?") + ")";
+        String checkSql = (enc == null)
+                ? "SELECT 0, 0, " + dupSql
+                : "SELECT e.capacity, "
+                + "(SELECT COUNT(*) FROM animals a WHERE a.inclosure_id = e.id), "
+                + dupSql + " "
+                + "FROM enclosures e WHERE e.id = ? FOR UPDATE";
+
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                int capacity;
+                int current;
+                boolean duplicate;
+                try (PreparedStatement ps = c.prepareStatement(checkSql)) {
+                    int i = 1;
+                    ps.setString(i++, t.getName());
+                    ps.setString(i++, t.getSpecies());
+                    if (birth != null) ps.setDate(i++, java.sql.Date.valueOf(birth));
+                    if (enc != null) ps.setInt(i, enc);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) {
+                            c.rollback();
+                            return new org.example.InsertResult(org.example.InsertResult.Status.ENCLOSURE_NOT_FOUND, 0, 0, 0);
+                        }
+                        capacity = rs.getInt(1);
+                        current = rs.getInt(2);
+                        duplicate = rs.getBoolean(3);
+                    }
+                }
+
+                if (enc != null && current >= capacity) {
+                    c.rollback();
+                    org.example.OccupancyCache.get().put(new org.example.Gehege(enc, null, capacity, current));
+                    return new org.example.InsertResult(org.example.InsertResult.Status.ENCLOSURE_FULL, 0, capacity, current);
+                }
+                if (duplicate) {
+                    c.rollback();
+                    return new org.example.InsertResult(org.example.InsertResult.Status.DUPLICATE, 0, capacity, current);
+                }
+
+                int id = 0;
+                try (PreparedStatement ps = c.prepareStatement(INSERT_ANIMAL, Statement.RETURN_GENERATED_KEYS)) {
+                    bindInsert(ps, t, birth);
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (keys.next()) id = keys.getInt(1);
+                    }
+                } catch (SQLException e) {
+                    if (!isDuplicateKey(e)) throw e;
+                    // stored by another desk after the check above
+                    c.rollback();
+                    return new org.example.InsertResult(org.example.InsertResult.Status.DUPLICATE, 0, capacity, current);
+                }
+                logChanges(c, org.example.AnimalChange.INSERT, List.of(id));
+                c.commit();
+                if (enc != null) {
+                    org.example.OccupancyCache.get().put(new org.example.Gehege(enc, null, capacity, current + 1));
+                }
+                return new org.example.InsertResult(org.example.InsertResult.Status.INSERTED, id,
+                        capacity, (enc == null) ? 0 : current + 1, persisted(t, id, birth));
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
         }
+    }
 
+    /** birth_date as stored: given date, else derived from age (today - age), else null. */
+    private static LocalDate resolveBirthDate(org.example.Tier t) {
         LocalDate birth = t.getBirthDate();
         if (birth == null && t.getAge() != null) {
             birth = LocalDate.now().minusYears(t.getAge());
         }
-        if (animalExists(t.getName(), t.getSpecies(), birth)) {
-            throw new SQLException("Animal already exists (same name, species, birth_date).");
-        }
+        return birth;
+    }
 
+    /** The animal as it is stored after the insert (same values findAll would return). */
+    private static org.example.Tier persisted(org.example.Tier t, int id, LocalDate birth) {
+        Integer age = (birth == null) ? t.getAge() : Period.between(birth, LocalDate.now()).getYears();
+        return new org.example.Tier(id, t.getName(), t.getSpecies(), age, null, t.getInclosureId(),
+                t.getSex(), t.getColor(), t.getArrivalDate(), t.getHealthNote(), birth);
+    }
+
+    private static void bindInsert(PreparedStatement ps, org.example.Tier t, LocalDate birth) throws SQLException {
         Integer ageToStore = (birth == null) ? t.getAge()
                 : Period.between(birth, LocalDate.now()).getYears();
 
-        String sql = """
-            INSERT INTO animals
-              (name, species, age, inclosure_id, sex, color, arrival_date, health_note, birth_date)
-            VALUES
-              (?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
+        ps.setString(1, t.getName());
+        ps.setString(2, t.getSpecies());
 
-        try (Connection c = getConnection();
-             PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        if (ageToStore == null) ps.setNull(3, Types.INTEGER);
+        else ps.setInt(3, ageToStore);
+
+        if (t.getInclosureId() == null) ps.setNull(4, Types.INTEGER);
+        else ps.setInt(4, t.getInclosureId());
 
-            ps.setString(1, t.getName());
-            ps.setString(2, t.getSpecies());
+        ps.setString(5, t.getSex());
+        ps.setString(6, t.getColor());
 
-            if (ageToStore == null) ps.setNull(3, Types.INTEGER);
-            else ps.setInt(3, ageToStore);
+        if (t.getArrivalDate() == null) ps.setNull(7, Types.DATE);
+        else ps.setDate(7, java.sql.Date.valueOf(t.getArrivalDate()));
 
-            if (t.getInclosureId() == null) ps.setNull(4, Types.INTEGER);
-            else ps.setInt(4, t.getInclosureId());
+        ps.setString(8, t.getHealthNote());
 
-            ps.setString(5, t.getSex());
-            ps.setString(6, t.getColor());
+        if (birth == null) ps.setNull(9, Types.DATE);
+        else ps.setDate(9, java.sql.Date.valueOf(birth));
+    }
+
+    /* ================== BATCH INSERT ================== */
+
+    /** Max. bind values per IN (...) list. */
+    private static final int IN_CHUNK = 1000;
+
+    /**
+     * Inserts many animals in one transaction:
+     * - capacity of all involved enclosures: one locking read + one grouped count,
+     * - duplicates (against the DB and within the list): one query per 1000 names,
+     * - rows written with a JDBC batch (sent as multi-row INSERTs by the driver).
+     * Rows that fail a check are skipped and reported; the others are committed together.
+     * If the unique key uq_animals_dup rejects the batch (another desk stored one of the animals
+     * after the check), the transaction is run again row by row and that row is reported.
+     */
+    public org.example.BatchInsertResult insertAll(List<org.example.Tier> animals) throws SQLException {
+        int n = animals.size();
+        if (n == 0) return new org.example.BatchInsertResult(0);
+
+        LocalDate[] births = new LocalDate[n];
+        Set<Integer> enclosureIds = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            org.example.Tier t = animals.get(i);
+            births[i] = resolveBirthDate(t);
+            if (t.getInclosureId() != null) enclosureIds.add(t.getInclosureId());
+            if (t.getName() != null) names.add(t.getName());
+        }
+
+        org.example.BatchInsertResult result;
+        try {
+            result = insertAll(animals, births, enclosureIds, names, false);
+        } catch (SQLException e) {
+            if (!isDuplicateKey(e)) throw e;
+            result = insertAll(animals, births, enclosureIds, names, true);
+        }
+        for (int i = 0; i < n; i++) {
+            if (result.getId(i) == 0) continue;
+            org.example.Tier t = animals.get(i);
+            org.example.OccupancyCache.get().animalAdded(t.getInclosureId());
+        }
+        return result;
+    }
 
-            if (t.getArrivalDate() == null) ps.setNull(7, Types.DATE);
-            else ps.setDate(7, java.sql.Date.valueOf(t.getArrivalDate()));
+    /** One insertAll transaction; rowByRow inserts each row under a savepoint instead of one batch. */
+    private org.example.BatchInsertResult insertAll(List<org.example.Tier> animals, LocalDate[] births,
+                                                    Set<Integer> enclosureIds, Set<String> names,
+                                                    boolean rowByRow) throws SQLException {
+        int n = animals.size();
+        org.example.BatchInsertResult result = new org.example.BatchInsertResult(n);
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                // free slots per enclosure; the enclosure rows stay locked until commit
+                Map<Integer, Integer> free = lockFreeSlots(c, enclosureIds);
+                Set<String> existing = existingDuplicateKeys(c, names);
+
+                List<Integer> accepted = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    org.example.Tier t = animals.get(i);
+                    String key = duplicateKey(t.getName(), t.getSpecies(), births[i]);
+                    Integer enc = t.getInclosureId();
+                    if (enc != null && !free.containsKey(enc)) {
+                        result.fail(i, "Enclosure " + enc + " not found");
+                    } else if (enc != null && free.get(enc) <= 0) {
+                        result.fail(i, "Enclosure " + enc + " is full");
+                    } else if (!existing.add(key)) {
+                        result.fail(i, "Animal already exists (same name, species, birth_date).");
+                    } else {
+                        if (enc != null) free.merge(enc, -1, Integer::sum);
+                        accepted.add(i);
+                    }
+                }
+
+                if (rowByRow) {
+                    insertRows(c, animals, births, accepted, result);
+                } else if (!accepted.isEmpty()) {
+                    try (PreparedStatement ps = c.prepareStatement(INSERT_ANIMAL, Statement.RETURN_GENERATED_KEYS)) {
+                        for (int i : accepted) {
+                            bindInsert(ps, animals.get(i), births[i]);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                        List<Integer> ids = new ArrayList<>(accepted.size());
+                        List<Integer> missing = new ArrayList<>();
+                        try (ResultSet keys = ps.getGeneratedKeys()) {
+                            for (int i : accepted) {
+                                if (keys.next()) {
+                                    result.inserted(i, keys.getInt(1));
+                                    ids.add(keys.getInt(1));
+                                } else {
+                                    missing.add(i);
+                                }
+                            }
+                        }
+                        // not every driver returns a key per batched row; look those up by key
+                        Set<Integer> taken = new HashSet<>(ids);
+                        for (int i : missing) {
+                            int id = reselectId(c, animals.get(i), births[i], taken);
+                            result.inserted(i, id);
+                            ids.add(id);
+                            taken.add(id);
+                        }
+                        logChanges(c, org.example.AnimalChange.INSERT, ids);
+                    }
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+        return result;
+    }
+
+    /** The accepted rows one at a time; a row the unique key rejects is rolled back alone and reported. */
+    private static void insertRows(Connection c, List<org.example.Tier> animals, LocalDate[] births,
+                                   List<Integer> accepted, org.example.BatchInsertResult result) throws SQLException {
+        List<Integer> ids = new ArrayList<>(accepted.size());
+        Set<Integer> taken = new HashSet<>();
+        try (PreparedStatement ps = c.prepareStatement(INSERT_ANIMAL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i : accepted) {
+                Savepoint sp = c.setSavepoint();
+                try {
+                    bindInsert(ps, animals.get(i), births[i]);
+                    ps.executeUpdate();
+                } catch (SQLException e) {
+                    if (!isDuplicateKey(e)) throw e;
+                    c.rollback(sp);
+                    result.fail(i, "Animal already exists (same name, species, birth_date).");
+                    continue;
+                }
+                int id;
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    id = keys.next() ? keys.getInt(1) : reselectId(c, animals.get(i), births[i], taken);
+                }
+                result.inserted(i, id);
+                ids.add(id);
+                taken.add(id);
+            }
+        }
+        logChanges(c, org.example.AnimalChange.INSERT, ids);
+    }
 
-            ps.setString(8, t.getHealthNote());
+    /**
+     * True if e (or an exception chained to it, as in a BatchUpdateException) is a violation
+     * of uq_animals_dup. MySQL names the key in its message, H2 the index.
+     */
+    static boolean isDuplicateKey(Throwable e) {
+        for (int depth = 0; e != null && depth < 10; depth++) {
+            if (e instanceof SQLIntegrityConstraintViolationException || (e instanceof SQLException s
+                    && s.getSQLState() != null && s.getSQLState().startsWith("23"))) {
+                String msg = e.getMessage();
+                if (msg != null && msg.toLowerCase(Locale.ROOT).contains("uq_animals_dup")) return true;
+            }
+            Throwable next = (e instanceof SQLException s) ? s.getNextException() : null;
+            e = (next != null && next != e) ? next : e.getCause();
+        }
+        return false;
+    }
 
-            if (birth == null) ps.setNull(9, Types.DATE);
-            else ps.setDate(9, java.sql.Date.valueOf(birth));
+    /**
+     * Id of a row this batch inserted, by name + species + birth_date: the newest match not
+     * already taken by another row of the batch. Throws (the batch is rolled back) if none is
+     * found, rather than counting a row as inserted without its id.
+     */
+    private static int reselectId(Connection c, org.example.Tier t, LocalDate birth, Set<Integer> taken)
+            throws SQLException {
+        String sql = "SELECT id FROM animals WHERE "
+                + (t.getName() == null ? "name IS NULL" : "name = ?") + " AND "
+                + (t.getSpecies() == null ? "species IS NULL" : "species = ?") + " AND "
+                + (birth == null ? "birth_date IS NULL" : "birth_date = ?") + " ORDER BY id DESC";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            int p = 1;
+            if (t.getName() != null) ps.setString(p++, t.getName());
+            if (t.getSpecies() != null) ps.setString(p++, t.getSpecies());
+            if (birth != null) ps.setDate(p, java.sql.Date.valueOf(birth));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    if (!taken.contains(id)) return id;
+                }
+            }
+        }
+        throw new SQLException("No generated id returned for \"" + t.getName() + "\"; batch not inserted");
+    }
 
-            ps.executeUpdate();
+    /** Locks the given enclosures (FOR UPDATE) and returns capacity - current animals per id. */
+    private static Map<Integer, Integer> lockFreeSlots(Connection c, Set<Integer> ids) throws SQLException {
+        Map<Integer, Integer> free = new HashMap<>();
+        for (List<Integer> chunk : chunks(new ArrayList<>(ids))) {
+            String in = placeholders(chunk.size());
+            try (PreparedStatement ps = c.prepareStatement(
+                    "SELECT id, capacity FROM enclosures WHERE id IN (" + in + ") FOR UPDATE")) {
+                bindInts(ps, chunk);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) free.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+            try (PreparedStatement ps = c.prepareStatement(
+                    "SELECT inclosure_id, COUNT(*) FROM animals WHERE inclosure_id IN (" + in + ") GROUP BY inclosure_id")) {
+                bindInts(ps, chunk);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        int count = rs.getInt(2);
+                        free.computeIfPresent(rs.getInt(1), (k, cap) -> cap - count);
+                    }
+                }
+            }
+        }
+        return free;
+    }
 
-            try (ResultSet keys = ps.getGeneratedKeys()) {
-                if (keys.next()) return keys.getInt(1);
+    /** duplicateKey(...) of every stored animal whose name is in the given set. */
+    private static Set<String> existingDuplicateKeys(Connection c, Set<String> names) throws SQLException {
+        Set<String> keys = new HashSet<>();
+        for (List<String> chunk : chunks(new ArrayList<>(names))) {
+            try (PreparedStatement ps = c.prepareStatement(
+                    "SELECT name, species, birth_date FROM animals WHERE name IN (" + placeholders(chunk.size()) + ")")) {
+                for (int i = 0; i < chunk.size(); i++) ps.setString(i + 1, chunk.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        java.sql.Date bd = rs.getDate(3);
+                        keys.add(duplicateKey(rs.getString(1), rs.getString(2), bd == null ? null : bd.toLocalDate()));
+                    }
+                }
             }
         }
-        return 0;
+        return keys;
+    }
+
+    /**
+     * Same identity as animalExists: name + species + birth_date (null matches null).
+     * Trimmed and lower-cased - close to, but not the same as, the MySQL collation, so it is only
+     * used among rows the database already matched by name.
+     */
+    static String duplicateKey(String name, String species, LocalDate birthDate) {
+        return normalize(name) + '\0' + normalize(species) + '\0' + birthDate;
+    }
+
+    private static String normalize(String s) {
+        return (s == null) ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static <T> List<List<T>> chunks(List<T> all) {
+        List<List<T>> out = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IN_CHUNK) {
+            out.add(all.subList(from, Math.min(all.size(), from + IN_CHUNK)));
+        }
+        return out;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static void bindInts(PreparedStatement ps, List<Integer> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) ps.setInt(i + 1, values.get(i));
     }
 
     /* ===================== DELETE ===================== */
 
-    public void deleteById(int id) throws SQLException {
+    /** Returns the number of rows deleted (0 if the animal was already gone). */
+    public int deleteById(int id) throws SQLException {
+        int n = executeDelete(id);
+        org.example.OccupancyCache.get().refreshAsync();   // enclosure of the row is not known here
+        return n;
+    }
+
+    /** Delete when the caller has the row; keeps the occupancy cache exact without a reload. Returns rows deleted. */
+    public int delete(org.example.Tier t) throws SQLException {
+        int n = executeDelete(t.getId());
+        if (n > 0) {
+            org.example.OccupancyCache.get().animalRemoved(t.getInclosureId());
+        }
+        return n;
+    }
+
+    private int executeDelete(int id) throws SQLException {
         String sql = "DELETE FROM animals WHERE id = ?";
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, id);
+                int n = ps.executeUpdate();
+                if (n > 0) logChanges(c, org.example.AnimalChange.DELETE, List.of(id));
+                c.commit();
+                return n;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /* ===================== BULK (multi-select) ===================== */
+
+    /**
+     * Deletes the given animals in one transaction: one DELETE ... WHERE id IN (...) per
+     * IN_CHUNK ids. Ids that no longer exist are skipped. Returns how many rows were deleted.
+     */
+    public int deleteByIds(Collection<Integer> ids) throws SQLException {
+        List<Integer> all = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (all.isEmpty()) return 0;
+        int deleted = 0;
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                for (List<Integer> chunk : chunks(all)) {
+                    List<Integer> existing = new ArrayList<>(lockAnimals(c, chunk).keySet());
+                    if (existing.isEmpty()) continue;
+                    try (PreparedStatement ps = c.prepareStatement(
+                            "DELETE FROM animals WHERE id IN (" + placeholders(existing.size()) + ")")) {
+                        bindInts(ps, existing);
+                        deleted += ps.executeUpdate();
+                    }
+                    logChanges(c, org.example.AnimalChange.DELETE, existing);
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+        if (deleted > 0) org.example.OccupancyCache.get().refreshAsync();
+        return deleted;
+    }
+
+    /**
+     * Moves the given animals to one enclosure, all or none: the enclosure row is locked and must
+     * have a free place for every animal not already in it. One UPDATE per IN_CHUNK ids.
+     */
+    public org.example.MoveResult moveToEnclosure(Collection<Integer> ids, int enclosureId) throws SQLException {
+        List<Integer> all = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Integer> moving = new ArrayList<>();
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                Map<Integer, Integer> free = lockFreeSlots(c, Set.of(enclosureId));
+                if (!free.containsKey(enclosureId)) {
+                    c.rollback();
+                    return new org.example.MoveResult(org.example.MoveResult.Status.ENCLOSURE_NOT_FOUND, List.of(), 0, 0);
+                }
+                for (List<Integer> chunk : chunks(all)) {
+                    for (Map.Entry<Integer, Integer> e : lockAnimals(c, chunk).entrySet()) {
+                        if (!Integer.valueOf(enclosureId).equals(e.getValue())) moving.add(e.getKey());
+                    }
+                }
+                int slots = free.get(enclosureId);
+                if (moving.size() > slots) {
+                    c.rollback();
+                    return new org.example.MoveResult(org.example.MoveResult.Status.ENCLOSURE_FULL,
+                            List.of(), moving.size(), slots);
+                }
+                for (List<Integer> chunk : chunks(moving)) {
+                    try (PreparedStatement ps = c.prepareStatement(
+                            "UPDATE animals SET inclosure_id = ? WHERE id IN (" + placeholders(chunk.size()) + ")")) {
+                        ps.setInt(1, enclosureId);
+                        for (int i = 0; i < chunk.size(); i++) ps.setInt(i + 2, chunk.get(i));
+                        ps.executeUpdate();
+                    }
+                }
+                logChanges(c, org.example.AnimalChange.UPDATE, moving);
+                c.commit();
+                if (!moving.isEmpty()) org.example.OccupancyCache.get().refreshAsync();
+                return new org.example.MoveResult(org.example.MoveResult.Status.MOVED, moving, moving.size(), slots);
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /** Sets the same health note (null clears it) on all given animals in one transaction; returns rows changed. */
+    public int updateHealthNotes(Collection<Integer> ids, String note) throws SQLException {
+        List<Integer> all = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (all.isEmpty()) return 0;
+        int updated = 0;
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                for (List<Integer> chunk : chunks(all)) {
+                    try (PreparedStatement ps = c.prepareStatement(
+                            "UPDATE animals SET health_note = ? WHERE id IN (" + placeholders(chunk.size()) + ")")) {
+                        ps.setString(1, note);
+                        for (int i = 0; i < chunk.size(); i++) ps.setInt(i + 2, chunk.get(i));
+                        updated += ps.executeUpdate();
+                    }
+                    logChanges(c, org.example.AnimalChange.UPDATE, chunk);    // unknown ids are ignored by readers
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+        return updated;
+    }
+
+    /** Locks the given animals (FOR UPDATE) and returns id -> enclosure (null = none) of those that exist. */
+    private static Map<Integer, Integer> lockAnimals(Connection c, List<Integer> ids) throws SQLException {
+        Map<Integer, Integer> found = new LinkedHashMap<>();
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT id, inclosure_id FROM animals WHERE id IN (" + placeholders(ids.size()) + ") FOR UPDATE")) {
+            bindInts(ps, ids);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) found.put(rs.getInt(1), getNullableInt(rs, "inclosure_id"));
+            }
+        }
+        return found;
+    }
+
+    /* ===================== CHANGE LOG ===================== */
+
+    /** Identifies this app instance in animal_changes, so it can skip its own changes when syncing. */
+    static final String CLIENT_ID = UUID.randomUUID().toString();
+
+    /**
+     * Every insert/update/delete of an animal also writes (animal_id, op) to animal_changes in the
+     * same transaction. Other clients read the log after their last seq (see ChangeFeed).
+     * The table comes from sql/migrations/002_animal_changes.sql (EmbeddedSchema for embedded storage).
+     */
+    private static void logChanges(Connection c, char op, List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) return;
+        String sql = "INSERT INTO animal_changes (animal_id, op, origin) VALUES (?, ?, ?)";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int id : ids) {
+                ps.setInt(1, id);
+                ps.setString(2, String.valueOf(op));
+                ps.setString(3, CLIENT_ID);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /** Highest seq in the change log (0 if empty) - the starting point for a fresh client. */
+    public long currentChangeSeq() throws SQLException {
+        try (Connection c = getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT COALESCE(MAX(seq), 0) FROM animal_changes");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /** Changes after the given seq, oldest first (uses the primary key, no table scan). */
+    public List<org.example.AnimalChange> changesSince(long afterSeq, int limit) throws SQLException {
+        String sql = "SELECT seq, animal_id, op, origin FROM animal_changes WHERE seq > ? ORDER BY seq LIMIT ?";
+        List<org.example.AnimalChange> list = new ArrayList<>();
+        try (Connection c = getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, afterSeq);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new org.example.AnimalChange(rs.getLong(1), rs.getInt(2),
+                            rs.getString(3).charAt(0), CLIENT_ID.equals(rs.getString(4))));
+                }
+            }
+        }
+        return list;
+    }
+
+    /** Seqs in the change log after the given one, ascending (where ChangeFeed starts, see ChangeFeed.Mark). */
+    public List<Long> changeSeqsSince(long afterSeq) throws SQLException {
+        List<Long> seqs = new ArrayList<>();
+        try (Connection c = getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT seq FROM animal_changes WHERE seq > ? ORDER BY seq")) {
+            ps.setLong(1, afterSeq);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) seqs.add(rs.getLong(1));
+            }
+        }
+        return seqs;
+    }
+
+    /** Removes log entries older than the given number of days. */
+    public int pruneChanges(int keepDays) throws SQLException {
+        String sql = "DELETE FROM animal_changes WHERE changed_at < ?";
         try (Connection c = getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            ps.executeUpdate();
+            ps.setTimestamp(1, Timestamp.valueOf(java.time.LocalDateTime.now().minusDays(keepDays)));
+            return ps.executeUpdate();
         }
     }
 
     /* ================= DUPLICATE CHECK ================= */
 
+    /** One indexed lookup. */
     public boolean animalExists(String name, String species, LocalDate birthDate) throws SQLException {
-        String sql = """
-            SELECT COUNT(*)
-            FROM animals
-            WHERE name = ? AND species = ?
-              AND ((birth_date IS NULL AND ? IS NULL) OR birth_date = ?)
-        """;
+        // two shapes instead of one OR-predicate, so an index on (name, species, birth_date) is used
+        String sql = "SELECT 1 FROM animals WHERE name = ? AND species = ? AND "
+                + (birthDate == null ? "birth_date IS NULL" : "birth_date = ?")
+                + " LIMIT 1";
         try (Connection c = getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, name);
             ps.setString(2, species);
-
-            if (birthDate == null) {
-                ps.setNull(3, Types.DATE);
-                ps.setNull(4, Types.DATE);
-            } else {
-                java.sql.Date d = java.sql.Date.valueOf(birthDate);
-                ps.setDate(3, d);
-                ps.setDate(4, d);
-            }
+            if (birthDate != null) ps.setDate(3, java.sql.Date.valueOf(birthDate));
             try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() && rs.getInt(1) > 0;
+                return rs.next();
             }
         }
     }
@@ -209,11 +847,167 @@ public class TierheimService {
         }
     }
 
+    /** Capacity and current animals of one enclosure in a single query; null if it does not exist. */
+    public org.example.Gehege findEnclosure(int enclosureId) throws SQLException {
+        String sql = """
+            SELECT e.capacity,
+                   (SELECT COUNT(*) FROM animals a WHERE a.inclosure_id = e.id) AS cnt
+            FROM enclosures e
+            WHERE e.id = ?
+        """;
+        try (Connection c = getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, enclosureId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                return new org.example.Gehege(enclosureId, null, rs.getInt(1), rs.getInt(2));
+            }
+        }
+    }
+
+    /** All enclosures with their current number of animals, in one aggregate query. */
+    public List<org.example.Gehege> findAllEnclosures() throws SQLException {
+        String sql = """
+            SELECT e.id, e.name, e.capacity, COUNT(a.id) AS cnt
+            FROM enclosures e
+            LEFT JOIN animals a ON a.inclosure_id = e.id
+            GROUP BY e.id, e.name, e.capacity
+            ORDER BY e.id
+        """;
+        List<org.example.Gehege> list = new ArrayList<>();
+        try (Connection c = getConnection();
+             PreparedStatement ps = c.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                list.add(new org.example.Gehege(rs.getInt("id"), rs.getString("name"),
+                        rs.getInt("capacity"), rs.getInt("cnt")));
+            }
+        }
+        return list;
+    }
+
+    /** Answered from OccupancyCache when possible, else one query. */
     public boolean hasSpaceInEnclosure(Integer enclosureId) throws SQLException {
         if (enclosureId == null) return true;
-        int cap = getEnclosureCapacity(enclosureId);
-        if (cap <= 0) return false;
-        int current = countByEnclosure(enclosureId);
-        return current < cap;
+        org.example.Gehege g = org.example.OccupancyCache.get().find(enclosureId);
+        if (g == null) g = findEnclosure(enclosureId);
+        if (g == null || g.getCapacity() <= 0) return false;
+        return g.getOccupancy() < g.getCapacity();
+    }
+
+    /* ===================== STATISTICS ===================== */
+
+    private static final String[] AGE_BUCKETS = {"< 1", "1 - 2", "3 - 6", "7 - 10", "11+", "unknown"};
+
+    /**
+     * Figures for the Statistics tab from a few GROUP BY queries; only group rows are transferred,
+     * never animals. Plain SQL that MySQL and H2 (MODE=MySQL) both run: weeks are formed from
+     * per-day counts here instead of with YEARWEEK().
+     * changeSeq is stored with the result so callers can skip a refresh while nothing changed.
+     */
+    public org.example.ShelterStatistics loadStatistics(int weeks, long changeSeq) throws SQLException {
+        try (Connection c = getConnection()) {
+            // one read-only snapshot for all aggregates, so the figures agree with each other
+            // (auto-commit and read-only are reset by the pool, the isolation level is not)
+            int isolation = c.getTransactionIsolation();
+            c.setReadOnly(true);
+            c.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            c.setAutoCommit(false);
+            try {
+                org.example.ShelterStatistics s = aggregateStatistics(c, weeks, changeSeq);
+                c.commit();
+                return s;
+            } finally {
+                c.setAutoCommit(true);
+                c.setTransactionIsolation(isolation);
+            }
+        }
+    }
+
+    private static org.example.ShelterStatistics aggregateStatistics(Connection c, int weeks, long changeSeq)
+            throws SQLException {
+        LocalDate today = LocalDate.now();
+        LocalDate firstWeek = today.with(java.time.DayOfWeek.MONDAY).minusWeeks(Math.max(1, weeks) - 1L);
+
+        Map<String, Integer> bySpecies = groupCounts(c,
+                "SELECT species, COUNT(*) FROM animals GROUP BY species ORDER BY COUNT(*) DESC");
+        Map<String, Integer> bySex = groupCounts(c,
+                "SELECT sex, COUNT(*) FROM animals GROUP BY sex ORDER BY COUNT(*) DESC");
+        int total = bySpecies.values().stream().mapToInt(Integer::intValue).sum();
+
+        Map<String, Integer> byEnclosure = new LinkedHashMap<>();
+        try (PreparedStatement ps = c.prepareStatement("""
+                SELECT a.inclosure_id, e.name, COUNT(*)
+                FROM animals a
+                LEFT JOIN enclosures e ON e.id = a.inclosure_id
+                GROUP BY a.inclosure_id, e.name
+                ORDER BY a.inclosure_id
+                """);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                String label = rs.wasNull() ? "(none)"
+                        : id + (rs.getString(2) != null ? " - " + rs.getString(2) : "");
+                byEnclosure.merge(label, rs.getInt(3), Integer::sum);
+            }
+        }
+
+        Map<String, Integer> byAge = new LinkedHashMap<>();
+        for (String b : AGE_BUCKETS) byAge.put(b, 0);
+        try (PreparedStatement ps = c.prepareStatement("""
+                SELECT TIMESTAMPDIFF(YEAR, birth_date, CURRENT_DATE), COUNT(*)
+                FROM animals
+                GROUP BY TIMESTAMPDIFF(YEAR, birth_date, CURRENT_DATE)
+                """);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int years = rs.getInt(1);
+                byAge.merge(rs.wasNull() ? "unknown" : ageBucket(years), rs.getInt(2), Integer::sum);
+            }
+        }
+
+        Map<LocalDate, Integer> perWeek = new LinkedHashMap<>();
+        for (LocalDate w = firstWeek; !w.isAfter(today); w = w.plusWeeks(1)) perWeek.put(w, 0);
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT arrival_date, COUNT(*) FROM animals WHERE arrival_date >= ? GROUP BY arrival_date")) {
+            ps.setDate(1, java.sql.Date.valueOf(firstWeek));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    LocalDate monday = rs.getDate(1).toLocalDate().with(java.time.DayOfWeek.MONDAY);
+                    if (perWeek.containsKey(monday)) perWeek.merge(monday, rs.getInt(2), Integer::sum);
+                }
+            }
+        }
+
+        // SUM / COUNT instead of AVG: AVG over integers is not a fraction on every database
+        double avgStay = Double.NaN;
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT COUNT(arrival_date), SUM(TIMESTAMPDIFF(DAY, arrival_date, CURRENT_DATE)) FROM animals");
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next() && rs.getLong(1) > 0) avgStay = (double) rs.getLong(2) / rs.getLong(1);
+        }
+
+        return new org.example.ShelterStatistics(total, bySpecies, bySex, byEnclosure, byAge,
+                perWeek, avgStay, today, changeSeq);
+    }
+
+    private static Map<String, Integer> groupCounts(Connection c, String sql) throws SQLException {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        try (PreparedStatement ps = c.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String key = rs.getString(1);
+                out.merge((key == null || key.isBlank()) ? "(unknown)" : key, rs.getInt(2), Integer::sum);
+            }
+        }
+        return out;
+    }
+
+    private static String ageBucket(int years) {
+        if (years < 1) return AGE_BUCKETS[0];
+        if (years <= 2) return AGE_BUCKETS[1];
+        if (years <= 6) return AGE_BUCKETS[2];
+        if (years <= 10) return AGE_BUCKETS[3];
+        return AGE_BUCKETS[4];
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,150 @@
+package org.example.bench;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * In-memory H2 database (MySQL mode) with the animals/enclosures schema, seeded with
+ * a fixed random seed so every run sees the same data.
+ * Must be set up before anything touches org.example.Database, which reads the URL once.
+ */
+final class BenchDatabase {
+
+    static final String DEFAULT_DATABASE = "tierheim";
+    static final String USER = "sa";
+    static final String PASS = "";
+
+    static final int ENCLOSURES = 100;
+    static final String[] SPECIES = {"Dog", "Cat", "Rabbit", "Guinea pig", "Bird", "Turtle"};
+    static final String[] COLORS = {"black", "white", "brown", "grey", "tabby", "mixed"};
+
+    private static final int BATCH = 10_000;
+
+    /** URL of the database last set up; Database reads it once, so one database per JVM. */
+    private static String url = url(DEFAULT_DATABASE);
+
+    private BenchDatabase() {}
+
+    static String url(String database) {
+        return "jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    /** Points the application at the in-memory database and fills it with the given number of animals. */
+    static void setUp(int animals) throws SQLException {
+        setUp(DEFAULT_DATABASE, animals);
+    }
+
+    /**
+     * Same, on an in-memory database of its own name, so test classes do not drop each other's
+     * tables (DROP ALL OBJECTS below).
+     */
+    static void setUp(String database, int animals) throws SQLException {
+        url = url(database);
+        System.setProperty("tierheim.db.url", url);
+        System.setProperty("tierheim.db.user", USER);
+        System.setProperty("tierheim.db.password", PASS);
+
+        try (Connection c = DriverManager.getConnection(url, USER, PASS);
+             Statement st = c.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+            st.execute("""
+                CREATE TABLE enclosures (
+                  id       INT PRIMARY KEY,
+                  name     VARCHAR(100),
+                  capacity INT NOT NULL
+                )
+            """);
+            st.execute("""
+                CREATE TABLE animals (
+                  id           INT AUTO_INCREMENT PRIMARY KEY,
+                  name         VARCHAR(100) NOT NULL,
+                  species      VARCHAR(100) NOT NULL,
+                  age          INT,
+                  inclosure_id INT,
+                  sex          CHAR(1),
+                  color        VARCHAR(50),
+                  arrival_date DATE,
+                  health_note  VARCHAR(500),
+                  birth_date   DATE
+                )
+            """);
+            st.execute("CREATE INDEX idx_animals_dup ON animals (name, species, birth_date)");
+            st.execute("ALTER TABLE animals ADD COLUMN dup_key VARCHAR(255) GENERATED ALWAYS AS "
+                    + "(CONCAT_WS('|', LOWER(TRIM(name)), LOWER(TRIM(species)), birth_date))");
+            st.execute("CREATE UNIQUE INDEX uq_animals_dup ON animals (dup_key)");
+            st.execute("CREATE INDEX idx_animals_enclosure ON animals (inclosure_id)");
+            st.execute("""
+                CREATE TABLE animal_changes (
+                  seq        BIGINT AUTO_INCREMENT PRIMARY KEY,
+                  animal_id  INT NOT NULL,
+                  op         CHAR(1) NOT NULL,
+                  origin     VARCHAR(36) NOT NULL,
+                  changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement("INSERT INTO enclosures (id, name, capacity) VALUES (?, ?, ?)")) {
+                for (int i = 1; i <= ENCLOSURES; i++) {
+                    ps.setInt(1, i);
+                    ps.setString(2, "Enclosure " + i);
+                    ps.setInt(3, Integer.MAX_VALUE / 2);        // never full, insert benchmarks keep adding rows
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            seedAnimals(c, animals);
+            c.commit();
+        }
+    }
+
+    private static void seedAnimals(Connection c, int animals) throws SQLException {
+        String sql = """
+            INSERT INTO animals
+              (name, species, age, inclosure_id, sex, color, arrival_date, health_note, birth_date)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+        Random rnd = new Random(42);
+        LocalDate today = LocalDate.now();
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 1; i <= animals; i++) {
+                LocalDate birth = today.minusDays(rnd.nextInt(15 * 365));
+                ps.setString(1, name(i));
+                ps.setString(2, SPECIES[rnd.nextInt(SPECIES.length)]);
+                ps.setNull(3, Types.INTEGER);
+                ps.setInt(4, 1 + rnd.nextInt(ENCLOSURES));
+                ps.setString(5, rnd.nextBoolean() ? "M" : "F");
+                ps.setString(6, COLORS[rnd.nextInt(COLORS.length)]);
+                ps.setDate(7, Date.valueOf(today.minusDays(rnd.nextInt(3 * 365))));
+                ps.setString(8, (i % 10 == 0) ? "Vaccinated" : null);
+                ps.setDate(9, Date.valueOf(birth));
+                ps.addBatch();
+                if (i % BATCH == 0) ps.executeBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    static String name(int i) {
+        return "Animal-" + i;
+    }
+
+    /** (name, species, birth_date) of some existing animals, for duplicate-check hits. */
+    static List<Object[]> sampleKeys(int count) throws SQLException {
+        List<Object[]> keys = new ArrayList<>(count);
+        try (Connection c = DriverManager.getConnection(url, USER, PASS);
+             PreparedStatement ps = c.prepareStatement(
+                     "SELECT name, species, birth_date FROM animals ORDER BY RAND() LIMIT ?")) {
+            ps.setInt(1, count);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    keys.add(new Object[]{rs.getString(1), rs.getString(2), rs.getDate(3).toLocalDate()});
+                }
+            }
+        }
+        return keys;
+    }
+}
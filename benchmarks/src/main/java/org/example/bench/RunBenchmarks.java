@@ -0,0 +1,21 @@
+package org.example.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar: JMH's own command line, but results are always
+ * written as JSON (jmh-result.json unless -rf / -rff are given), so runs can be compared.
+ */
+public final class RunBenchmarks {
+
+    private RunBenchmarks() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> a = new ArrayList<>(Arrays.asList(args));
+        if (!a.contains("-rf")) a.addAll(List.of("-rf", "json"));
+        if (!a.contains("-rff")) a.addAll(List.of("-rff", "jmh-result.json"));
+        org.openjdk.jmh.Main.main(a.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TierTableModel.getValueAt, the call JTable makes for every visible cell while painting.
+ * The model holds the whole table (setData), so no paging is involved; runs off the EDT,
+ * which is fine because nothing is fired while reading.
+ * source=list hands over findAll() (split into page stores), source=store streams straight into
+ * one AnimalStore, the way a full in-memory table should be loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class TierTableModelBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"list", "store"})
+    public String source;
+
+    private org.example.TierTableModel model;
+    private int[] cells;        // random (row, col) pairs, precomputed so Random is not measured
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, java.io.IOException {
+        BenchDatabase.setUp(rows);
+        model = new org.example.TierTableModel();
+        org.example.TierheimService service = new org.example.TierheimService();
+        if (source.equals("store")) model.setData(org.example.AnimalStore.load(service));
+        else model.setData(service.findAll());
+
+        Random rnd = new Random(7);
+        cells = new int[1 << 16];
+        for (int i = 0; i < cells.length; i += 2) {
+            cells[i] = rnd.nextInt(model.getRowCount());
+            cells[i + 1] = rnd.nextInt(model.getColumnCount());
+        }
+    }
+
+    @Benchmark
+    public Object getValueAt() {
+        int i = next;
+        next = (i + 2) & (cells.length - 1);
+        return model.getValueAt(cells[i], cells[i + 1]);
+    }
+
+    /** One screen of rows (30 x all columns) in order, like a repaint after scrolling. */
+    @Benchmark
+    @OperationsPerInvocation(30 * 9)
+    public int paintScreen() {
+        int first = cells[next];
+        next = (next + 2) & (cells.length - 1);
+        int last = Math.min(model.getRowCount(), first + 30);
+        int nonNull = 0;
+        for (int r = first; r < last; r++) {
+            for (int c = 0; c < model.getColumnCount(); c++) {
+                if (model.getValueAt(r, c) != null) nonNull++;
+            }
+        }
+        return nonNull;
+    }
+}
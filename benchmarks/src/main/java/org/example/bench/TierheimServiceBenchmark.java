@@ -0,0 +1,78 @@
+package org.example.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DAO hot paths of TierheimService against the seeded in-memory database.
+ * One fork per table size, so each size gets its own fresh database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class TierheimServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private org.example.TierheimService service;
+    private List<Object[]> existing;
+    private int next;           // rotates through existing keys / enclosures
+    private int inserted;       // unique names for insert()
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchDatabase.setUp(rows);
+        service = new org.example.TierheimService();
+        // caches are warm in the running app too
+        org.example.OccupancyCache.get().refresh();
+        existing = BenchDatabase.sampleKeys(1000);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<org.example.Tier> findAll() throws SQLException {
+        return service.findAll();
+    }
+
+    @Benchmark
+    public int insert() throws SQLException {
+        org.example.Tier t = new org.example.Tier(
+                0, "Bench-" + (++inserted), "Cat", null, false,
+                1 + inserted % BenchDatabase.ENCLOSURES, "F", "grey",
+                LocalDate.now(), null, LocalDate.of(2020, 1, 1));
+        return service.insert(t);
+    }
+
+    /** Key that exists: the index says "maybe", so the indexed lookup runs. */
+    @Benchmark
+    public boolean animalExistsHit() throws SQLException {
+        Object[] k = existing.get(next++ % existing.size());
+        return service.animalExists((String) k[0], (String) k[1], (LocalDate) k[2]);
+    }
+
+    /** Key that does not exist (index lookup finds nothing). */
+    @Benchmark
+    public boolean animalExistsMiss() throws SQLException {
+        return service.animalExists("Missing-" + (next++), "Cat", LocalDate.of(2020, 1, 1));
+    }
+
+    /** Answered from OccupancyCache. */
+    @Benchmark
+    public boolean hasSpaceInEnclosure() throws SQLException {
+        return service.hasSpaceInEnclosure(1 + next++ % BenchDatabase.ENCLOSURES);
+    }
+
+    /** The query hasSpaceInEnclosure falls back to when the cache has no entry. */
+    @Benchmark
+    public org.example.Gehege findEnclosure() throws SQLException {
+        return service.findEnclosure(1 + next++ % BenchDatabase.ENCLOSURES);
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.bench;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs queries through the pooled, instrumented connections (metrics are on by default),
+ * so a broken Statement/ResultSet proxy fails here and not in the running application.
+ */
+class QueryMetricsSmokeTest {
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        BenchDatabase.setUp("metrics-smoke", 20);
+    }
+
+    @Test
+    void readsAndInsertsWithMetricsEnabled() throws Exception {
+        org.example.TierheimService service = new org.example.TierheimService();
+        long before = org.example.QueryMetrics.get().getQueryCount();
+
+        List<org.example.Tier> page = service.findPage(null, 10);
+        assertEquals(10, page.size());
+
+        org.example.InsertResult r = service.insertChecked(new org.example.Tier(0, "Smoke", "Cat", null, false, 1,
+                "F", "black", LocalDate.now(), null, LocalDate.of(2020, 1, 1)));
+        assertTrue(r.isInserted(), r.getMessage(1));
+        assertTrue(org.example.QueryMetrics.get().getQueryCount() > before, "queries were recorded");
+    }
+
+    @Test
+    void resultSetAnswersWithItsStatementProxy() throws Exception {
+        try (Connection c = org.example.Database.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT id, name FROM animals WHERE id <= ? ORDER BY id")) {
+            ps.setInt(1, 3);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertSame(ps, rs.getStatement());
+                int rows = 0;
+                while (rs.next()) {
+                    assertNotNull(rs.getString("name"));
+                    rows++;
+                }
+                assertEquals(3, rows);
+            }
+        }
+    }
+}
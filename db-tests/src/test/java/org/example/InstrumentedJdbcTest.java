@@ -0,0 +1,90 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads and writes through the statement/result set proxies of InstrumentedJdbc (metrics are on
+ * by default), directly and through the pool, so a broken proxy fails here and not with every
+ * SELECT in the running application.
+ */
+class InstrumentedJdbcTest {
+
+    private static final String URL = "jdbc:h2:mem:instrumented;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static ConnectionPool pool;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        pool = new ConnectionPool(URL, "sa", "", 1, 2, 60_000, 5_000);
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.execute("CREATE TABLE items (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(50))");
+            st.executeUpdate("INSERT INTO items (name) VALUES ('a'), ('b'), ('c')");
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void resultSetForwardsToTheResultSet() throws SQLException {
+        try (Connection c = pool.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT name FROM items WHERE id <= ? ORDER BY id")) {
+            ps.setInt(1, 2);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals("a", rs.getString(1));
+                assertEquals("a", rs.getString("name"));
+                assertTrue(rs.next());
+                assertEquals("b", rs.getString(1));
+                assertFalse(rs.next());
+                assertSame(ps, rs.getStatement(), "the result set answers with the statement proxy");
+            }
+        }
+    }
+
+    @Test
+    void wrapsAPlainConnectionsStatements() throws SQLException {
+        try (Connection raw = java.sql.DriverManager.getConnection(URL, "sa", "");
+             PreparedStatement ps = (PreparedStatement) InstrumentedJdbc.wrap(
+                     raw.prepareStatement("SELECT COUNT(*) FROM items"), PreparedStatement.class,
+                     "SELECT COUNT(*) FROM items");
+             ResultSet rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+            assertEquals(3, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void recordsQueriesAndUpdates() throws SQLException {
+        long before = QueryMetrics.get().getQueryCount();
+        try (Connection c = pool.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement("UPDATE items SET name = ? WHERE id = ?")) {
+                ps.setString(1, "C");
+                ps.setInt(2, 3);               // not one of the rows the other tests read
+                assertEquals(1, ps.executeUpdate());
+            }
+            try (PreparedStatement ps = c.prepareStatement("SELECT id FROM items");
+                 ResultSet rs = ps.executeQuery()) {
+                int rows = 0;
+                while (rs.next()) rows++;
+                assertEquals(3, rows);
+            }
+        }
+        assertEquals(before + 2, QueryMetrics.get().getQueryCount());
+        assertTrue(QueryMetrics.get().getOperations().stream()
+                        .anyMatch(o -> o.getOperation().equals("InstrumentedJdbcTest.recordsQueriesAndUpdates")),
+                "the operation is named after the calling method");
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs OpeningExceptionDao against the embedded schema (H2 in MySQL mode, as in embedded
+ * storage), so a column the DAO uses but the table lacks fails here and not on a user's start.
+ * In this package because EmbeddedSchema is package-private.
+ */
+class OpeningExceptionDaoTest {
+
+    private static final String URL = "jdbc:h2:mem:opening-exceptions;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final LocalDate CHRISTMAS = LocalDate.of(2030, 12, 25);
+    private static final LocalDate NEW_YEARS_EVE = LocalDate.of(2030, 12, 31);
+
+    private final OpeningExceptionDao dao = new OpeningExceptionDao();
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        // before Database is loaded, it reads the URL once
+        System.setProperty("tierheim.db.url", URL);
+        System.setProperty("tierheim.db.user", "sa");
+        System.setProperty("tierheim.db.password", "");
+        try (Connection c = DriverManager.getConnection(URL, "sa", "")) {
+            EmbeddedSchema.create(c);
+        }
+    }
+
+    @Test
+    void storesFindsAndDeletesExceptions() throws SQLException {
+        dao.upsert(new OpeningException(NEW_YEARS_EVE, true, LocalTime.of(10, 0), LocalTime.of(14, 0), "short day"));
+        dao.upsert(new OpeningException(CHRISTMAS, false, null, null, "Christmas"));
+
+        List<OpeningException> all = dao.findFrom(CHRISTMAS);
+        assertEquals(2, all.size());
+        assertEquals(CHRISTMAS, all.get(0).getDate(), "in date order");
+        assertFalse(all.get(0).isOpen());
+        assertNull(all.get(0).getOpenTime());
+
+        OpeningException eve = all.get(1);
+        assertTrue(eve.isOpen());
+        assertEquals(LocalTime.of(10, 0), eve.getOpenTime());
+        assertEquals(LocalTime.of(14, 0), eve.getCloseTime());
+        assertEquals("short day", eve.getNote());
+
+        assertEquals(1, dao.findFrom(CHRISTMAS.plusDays(1)).size());
+
+        dao.delete(CHRISTMAS);
+        dao.delete(NEW_YEARS_EVE);
+        assertTrue(dao.findFrom(CHRISTMAS).isEmpty());
+    }
+
+    @Test
+    void upsertReplacesTheExceptionOfTheSameDate() throws SQLException {
+        LocalDate day = LocalDate.of(2031, 5, 1);
+        dao.upsert(new OpeningException(day, false, null, null, "closed"));
+        dao.upsert(new OpeningException(day, true, LocalTime.of(11, 0), LocalTime.of(15, 0), "open after all"));
+
+        List<OpeningException> found = dao.findFrom(day);
+        assertEquals(1, found.size());
+        assertTrue(found.get(0).isOpen());
+        assertEquals("open after all", found.get(0).getNote());
+
+        dao.delete(day);
+    }
+}
@@ -0,0 +1,12 @@
+-- Duplicate identity of an animal (name + species + birth_date, trimmed, any case) as a
+-- unique key, so two desks cannot store the same animal at the same time.
+-- TierheimService reports a violation of uq_animals_dup as "already exists".
+--
+-- Existing duplicates make the index fail; list them first with:
+--   SELECT LOWER(TRIM(name)), LOWER(TRIM(species)), birth_date, COUNT(*)
+--   FROM animals GROUP BY 1, 2, 3 HAVING COUNT(*) > 1;
+
+ALTER TABLE animals
+  ADD COLUMN dup_key VARCHAR(255)
+    GENERATED ALWAYS AS (CONCAT_WS('|', LOWER(TRIM(name)), LOWER(TRIM(species)), birth_date)) STORED,
+  ADD UNIQUE KEY uq_animals_dup (dup_key);
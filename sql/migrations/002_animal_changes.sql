@@ -0,0 +1,11 @@
+-- Change log of animal inserts, updates and deletes (one row per change, written in the same
+-- transaction). Other desks poll it after their last seq to stay current (see ChangeFeed).
+-- Older app versions created the table at runtime, hence IF NOT EXISTS.
+
+CREATE TABLE IF NOT EXISTS animal_changes (
+  seq        BIGINT AUTO_INCREMENT PRIMARY KEY,
+  animal_id  INT NOT NULL,
+  op         CHAR(1) NOT NULL,
+  origin     VARCHAR(36) NOT NULL,
+  changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,11 @@
+-- Opening hours for single dates (public holidays, events, shortened days) that replace the
+-- weekday's regular hours (see OpeningExceptionDao).
+-- Older app versions created the table at runtime, hence IF NOT EXISTS.
+
+CREATE TABLE IF NOT EXISTS opening_exceptions (
+  exception_date DATE PRIMARY KEY,
+  is_open        BOOLEAN NOT NULL DEFAULT FALSE,
+  open_time      TIME,
+  close_time     TIME,
+  note           VARCHAR(255)
+);